@@ -0,0 +1,330 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Point to point shortest paths over a CSRGraph, guided by a Heuristic
+ *
+ * Like Dijkstra, one AStar is meant to be kept and reused: buffers are
+ * allocated once and only the entries a query touched are reset. By default
+ * the heuristic is the straight line distance between node positions, which
+ * fits graphs whose weights are (at least) the distance between the nodes
+ *
+ * runBidirectional() searches from both ends at once with the average of the
+ * two potentials, (h(v, target) - h(source, v)) / 2, so both searches see the
+ * same non negative reduced weights and can stop as soon as their frontiers
+ * prove the best meeting point. It needs the transposed snapshot, which is
+ * built on its first call, and a consistent heuristic
+ *
+ * Member Methods:
+ * - run(int source, int target)
+ * - runBidirectional(int source, int target)
+ * - getDistance()
+ * - getExpanded()
+ * - pathTo(int[] path)
+ * - getPath()
+ * - getPath(Node<T> source, Node<T> target)
+ *
+ * @version 1.0
+ */
+public class AStar<T> {
+
+    private final CSRGraph<T> graph;
+    private CSRGraph<T> reverse;
+    private final Heuristic h;
+    private final boolean negative;
+
+    // forward search, g is the real distance from the source
+    private final double[] g;
+    private final int[] pred;
+    private final IndexedHeap heap;
+    // backward search over the transpose, pred points towards the target
+    private double[] gBack;
+    private int[] predBack;
+    private IndexedHeap heapBack;
+
+    private final int[] touched;
+    private int touchedCount;
+
+    // result of the last query
+    private int source = -1;
+    private int target = -1;
+    private int meet = -1;
+    private double distance = Double.POSITIVE_INFINITY;
+    private int expanded;
+
+    /**
+     * Creates the search with straight line distance as the heuristic
+     *
+     * @param graph Snapshot to search
+     */
+    public AStar(CSRGraph<T> graph) {
+        this(graph, Heuristic.euclidean(graph));
+    }
+
+    /**
+     * Creates the search with a custom heuristic
+     *
+     * @param graph Snapshot to search
+     * @param h     Heuristic, has to be admissible (consistent for
+     *              runBidirectional())
+     */
+    public AStar(CSRGraph<T> graph, Heuristic h) {
+        this.graph = graph;
+        this.h = h;
+        int n = graph.getSize();
+        g = new double[n];
+        pred = new int[n];
+        heap = new IndexedHeap(n);
+        touched = new int[n];
+        Arrays.fill(g, Double.POSITIVE_INFINITY);
+        Arrays.fill(pred, -1);
+
+        boolean neg = false;
+        for (int e = 0; e < graph.getEdgeCount(); e++) {
+            if (graph.edgeWeight(e) < 0) {
+                neg = true;
+                break;
+            }
+        }
+        negative = neg;
+    }
+
+    /**
+     * Finds the shortest path from source to target
+     *
+     * @param source Index of the node to start from
+     * @param target Index of the node to go to
+     * @return Returns true if a path was found, false if there is none, either
+     *         index isn't in the snapshot or the snapshot has negative weights
+     */
+    public boolean run(int source, int target) {
+        if (!start(source, target))
+            return false;
+
+        g[source] = 0;
+        touch(source);
+        heap.push(source, h.estimate(source, target));
+        while (!heap.isEmpty()) {
+            int u = heap.pop();
+            if (u == target) {
+                meet = target;
+                distance = g[target];
+                break;
+            }
+            expanded++;
+            double gu = g[u];
+            for (int e = graph.edgeStart(u), end = graph.edgeEnd(u); e < end; e++) {
+                int v = graph.edgeTarget(e);
+                double gv = gu + graph.edgeWeight(e);
+                // no closed set, a node comes back if it's reached cheaper so
+                // heuristics that are only admissible still give shortest paths
+                if (gv < g[v]) {
+                    if (g[v] == Double.POSITIVE_INFINITY)
+                        touch(v);
+                    g[v] = gv;
+                    pred[v] = u;
+                    heap.push(v, gv + h.estimate(v, target));
+                }
+            }
+        }
+        heap.clear();
+        return meet >= 0;
+    }
+
+    /**
+     * Finds the shortest path from source to target searching from both ends
+     *
+     * @param source Index of the node to start from
+     * @param target Index of the node to go to
+     * @return Returns true if a path was found, false if there is none, either
+     *         index isn't in the snapshot or the snapshot has negative weights
+     */
+    public boolean runBidirectional(int source, int target) {
+        if (!start(source, target))
+            return false;
+        if (reverse == null) {
+            reverse = graph.transpose();
+            int n = graph.getSize();
+            gBack = new double[n];
+            predBack = new int[n];
+            heapBack = new IndexedHeap(n);
+            Arrays.fill(gBack, Double.POSITIVE_INFINITY);
+            Arrays.fill(predBack, -1);
+        }
+
+        // keys are g + p(v) forward and g - p(v) backward, with p the average
+        // potential. Reduced weights are the same both ways, so once the two
+        // smallest keys add up to the best meeting distance nothing can beat it
+        g[source] = 0;
+        gBack[target] = 0;
+        touch(source);
+        if (target != source)
+            touch(target);
+        heap.push(source, potential(source, source, target));
+        heapBack.push(target, -potential(target, source, target));
+        if (source == target) {
+            meet = source;
+            distance = 0;
+        }
+        while (!heap.isEmpty() && !heapBack.isEmpty()) {
+            if (heap.priority(heap.peek()) + heapBack.priority(heapBack.peek()) >= distance)
+                break;
+            expanded++;
+            if (heap.getSize() <= heapBack.getSize())
+                expand(graph, heap, g, pred, gBack, heap.pop(), source, target, 1);
+            else
+                expand(reverse, heapBack, gBack, predBack, g, heapBack.pop(), source, target, -1);
+        }
+        heap.clear();
+        heapBack.clear();
+        return meet >= 0;
+    }
+
+    /**
+     * @return Returns the length of the path found by the last query,
+     *         Double.POSITIVE_INFINITY if there wasn't one
+     */
+    public double getDistance() {
+        return distance;
+    }
+
+    /**
+     * @return Returns the number of nodes the last query expanded
+     */
+    public int getExpanded() {
+        return expanded;
+    }
+
+    /**
+     * Writes the path found by the last query into an array without allocating
+     *
+     * @param path Array to write the indices into, source first. getSize() of
+     *             the snapshot is always enough room
+     * @return Returns the number of nodes in the path, 0 if there was no path or
+     *         path is too small
+     */
+    public int pathTo(int[] path) {
+        if (meet < 0)
+            return 0;
+        int length = 0;
+        for (int v = meet; v >= 0; v = pred[v]) {
+            length++;
+        }
+        int back = 0;
+        if (meet != target) {
+            for (int v = predBack[meet]; v >= 0; v = predBack[v]) {
+                back++;
+            }
+        }
+        if (length + back > path.length)
+            return 0;
+
+        int i = length;
+        for (int v = meet; v >= 0; v = pred[v]) {
+            path[--i] = v;
+        }
+        i = length;
+        if (meet != target) {
+            for (int v = predBack[meet]; v >= 0; v = predBack[v]) {
+                path[i++] = v;
+            }
+        }
+        return length + back;
+    }
+
+    /**
+     * Gets the path found by the last query. Allocates, use pathTo() in hot loops
+     *
+     * @return Returns the nodes of the path, source first, empty if there was no
+     *         path
+     */
+    public List<Node<T>> getPath() {
+        int[] path = new int[graph.getSize()];
+        int length = pathTo(path);
+        ArrayList<Node<T>> res = new ArrayList<>(length);
+        for (int i = 0; i < length; i++) {
+            res.add(graph.getNode(path[i]));
+        }
+        return res;
+    }
+
+    /**
+     * Runs a query by node and gets its path
+     *
+     * @param source Node to start from
+     * @param target Node to go to
+     * @return Returns the nodes of the path, source first, empty if there is no
+     *         path or either node isn't in the snapshot
+     */
+    public List<Node<T>> getPath(Node<T> source, Node<T> target) {
+        if (!run(graph.indexOf(source), graph.indexOf(target)))
+            return Collections.emptyList();
+        return getPath();
+    }
+
+    /**
+     * Checks a query and resets everything the last one touched
+     *
+     * @return Returns false if the query can't be run
+     */
+    private boolean start(int source, int target) {
+        int n = g.length;
+        if (negative || source < 0 || source >= n || target < 0 || target >= n)
+            return false;
+        for (int i = 0; i < touchedCount; i++) {
+            int v = touched[i];
+            g[v] = Double.POSITIVE_INFINITY;
+            pred[v] = -1;
+            if (gBack != null) {
+                gBack[v] = Double.POSITIVE_INFINITY;
+                predBack[v] = -1;
+            }
+        }
+        touchedCount = 0;
+        this.source = source;
+        this.target = target;
+        meet = -1;
+        distance = Double.POSITIVE_INFINITY;
+        expanded = 0;
+        return true;
+    }
+
+    /**
+     * Relaxes the edges of u for one side of the bidirectional search
+     *
+     * @param side 1 for the forward search, -1 for the backward one
+     */
+    private void expand(CSRGraph<T> csr, IndexedHeap q, double[] dist, int[] prev, double[] other, int u,
+            int source, int target, int side) {
+        double du = dist[u];
+        for (int e = csr.edgeStart(u), end = csr.edgeEnd(u); e < end; e++) {
+            int v = csr.edgeTarget(e);
+            double dv = du + csr.edgeWeight(e);
+            if (dv < dist[v]) {
+                if (g[v] == Double.POSITIVE_INFINITY && gBack[v] == Double.POSITIVE_INFINITY)
+                    touch(v);
+                dist[v] = dv;
+                prev[v] = u;
+                q.push(v, dv + side * potential(v, source, target));
+                if (dv + other[v] < distance) {
+                    distance = dv + other[v];
+                    meet = v;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return Returns the forward average potential of v
+     */
+    private double potential(int v, int source, int target) {
+        return (h.estimate(v, target) - h.estimate(source, v)) / 2;
+    }
+
+    private void touch(int v) {
+        touched[touchedCount++] = v;
+    }
+
+}
@@ -1,10 +1,10 @@
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.HashMap;
 
 /*
  * TO DO:
- *  - tradeoff between memory and speed for removeNode()
  *  - add copy constructor
  */
 
@@ -13,25 +13,67 @@ import java.util.HashMap;
  * 
  * Member Methods:
  * - addNode(Node<T> node)
+ * - addNode(Node<T> node, int degree)
+ * - ensureCapacity(int ids)
  * - addEdge(Node<T> nodeOne, Node<T> nodeTwo)
  * - removeNode(Node<T> node)
  * - removeEdge(Node<T> nodeOne, Node<T> nodeTwo)
+ * - removeEdge(Edge<T> edge)
+ * - findEdge(Node<T> nodeOne, Node<T> nodeTwo)
+ * - minWeight(Node<T> nodeOne, Node<T> nodeTwo)
  * - edgeExists()
  * - getNeighbors(Node<T> node)
+ * - getInNeighbors(Node<T> node)
+ * - inDegree(Node<T> node)
+ * - outDegree(Node<T> node)
+ * - getEdges(Node<T> node)
+ * - getInEdges(Node<T> node)
+ * - getEdges(int id)
+ * - edgeExists(int idOne, int idTwo)
  * - getAllNodes()
  * - getSize()
+ * - freeze()
  * - toString()
  * 
+ * Nodes with an id from their graph keep their edge list in byId at that id,
+ * so lookups are an array index. Nodes without an id (or whose id is already
+ * taken) go in the adjList HashMap like before
+ * 
+ * Every edge is an Edge object that sits in both its SOURCE's edge list and
+ * its TARGET's incoming list and knows its position in each. Removing an edge
+ * swaps the last entry into its place, so it's O(1) but the order of the
+ * remaining edges changes, and removeNode() only touches the node's own edges
+ * 
+ * Once a node has HUB_DEGREE edges its edge list also gets a NeighborIndex
+ * (target -> edges), so edgeExists() and findEdge() on hubs don't walk a list
+ * of 10^5 edges. The index is dropped again when the node falls back under
+ * half of that, small lists are faster to just scan
+ * 
  * @author Milian Ingco
  * @version 1.0
  * @since 8/23/2024
  */
 public class AdjList<T> {
 
-    private HashMap<Node<T>, ArrayList<Pair<Node<T>, Double>>> adjList;
+    private HashMap<Node<T>, ArrayList<Edge<T>>> adjList;
+    private ArrayList<Node<T>> lookNode;
+    private ArrayList<ArrayList<Edge<T>>> byId;
+    private HashMap<Node<T>, ArrayList<Edge<T>>> inList;
+    private ArrayList<ArrayList<Edge<T>>> inById;
+    private int size;
+
+    private static final int HUB_DEGREE = 64;
+    private ArrayList<NeighborIndex<T>> indexById;
+    private HashMap<Node<T>, NeighborIndex<T>> indexes;
 
     public AdjList() {
         adjList = new HashMap<>();
+        lookNode = new ArrayList<>();
+        byId = new ArrayList<>();
+        inList = new HashMap<>();
+        inById = new ArrayList<>();
+        indexById = new ArrayList<>();
+        indexes = new HashMap<>();
     }
 
     /**
@@ -41,12 +83,51 @@ public class AdjList<T> {
      * @return Returns true if successfully added, false if node already exists
      */
     public boolean addNode(Node<T> node) {
-        if (adjList.containsKey(node))
+        return addNode(node, 0);
+    }
+
+    /**
+     * Adds node to the graph with room for a number of edges
+     * 
+     * @param node   Node to be added
+     * @param degree Number of edges the node is expected to have, 0 if unknown
+     * @return Returns true if successfully added, false if node already exists
+     */
+    public boolean addNode(Node<T> node, int degree) {
+        if (edgeList(node) != null)
             return false;
-        adjList.put(node, new ArrayList<>());
+
+        int id = node.getId();
+        while (id >= lookNode.size()) {
+            lookNode.add(null);
+            byId.add(null);
+            inById.add(null);
+            indexById.add(null);
+        }
+        if (id >= 0 && lookNode.get(id) == null) {
+            lookNode.set(id, node);
+            byId.set(id, newEdgeList(degree));
+            inById.set(id, newEdgeList(0));
+        } else {
+            adjList.put(node, newEdgeList(degree));
+            inList.put(node, newEdgeList(0));
+        }
+        size++;
         return true;
     }
 
+    /**
+     * Makes room for nodes with ids below a given number without resizing
+     * 
+     * @param ids One more than the largest id expected
+     */
+    public void ensureCapacity(int ids) {
+        lookNode.ensureCapacity(ids);
+        byId.ensureCapacity(ids);
+        inById.ensureCapacity(ids);
+        indexById.ensureCapacity(ids);
+    }
+
     /**
      * Adds a directional edge between two nodes in the specified direction
      * from nodeOne -> nodeTwo
@@ -74,12 +155,37 @@ public class AdjList<T> {
      *         either node does not already exist in the graph
      */
     public boolean addEdge(Node<T> nodeOne, Node<T> nodeTwo, Double weight) {
-        if (!adjList.containsKey(nodeOne) || !adjList.containsKey(nodeTwo))
-            return false;
+        return link(nodeOne, nodeTwo, weight) != null;
+    }
 
-        adjList.get(nodeOne).add(new Pair<Node<T>, Double>(nodeTwo, weight));
+    /**
+     * Adds a directional edge and hands back the Edge object, which is what
+     * Graph keeps as the handle for removeEdge(Edge<T>)
+     * 
+     * @param nodeOne The SOURCE node
+     * @param nodeTwo The TARGET node
+     * @param weight  Weight of the edge
+     * @return Returns the new edge, null if either node does not exist
+     */
+    Edge<T> link(Node<T> nodeOne, Node<T> nodeTwo, Double weight) {
+        ArrayList<Edge<T>> edgeList = edgeList(nodeOne);
+        ArrayList<Edge<T>> in = inEdgeList(nodeTwo);
+        if (edgeList == null || in == null)
+            return null;
 
-        return true;
+        Edge<T> edge = new Edge<>(nodeOne, nodeTwo, weight);
+        edge.slot = edgeList.size();
+        edgeList.add(edge);
+        edge.inSlot = in.size();
+        in.add(edge);
+
+        NeighborIndex<T> index = neighborIndex(nodeOne);
+        if (index != null)
+            index.add(edge);
+        else if (edgeList.size() >= HUB_DEGREE)
+            buildIndex(nodeOne, edgeList);
+
+        return edge;
     }
 
     /**
@@ -89,17 +195,34 @@ public class AdjList<T> {
      * @return Returns the removed node, null if node doesn't exist
      */
     public Node<T> removeNode(Node<T> node) {
-        if (!adjList.containsKey(node))
+        ArrayList<Edge<T>> out = edgeList(node);
+        if (out == null)
             return null;
-        // No list of edges because could be a directed graph; must check each list
-        // could probably keep track of edges as memory is less of a concern though
-        adjList.remove(node);
-        for (var list : adjList.values()) {
-            for (int i = 0; i < list.size(); i++) {
-                if (list.get(i).one == node)
-                    list.remove(i);
-            }
+        ArrayList<Edge<T>> in = inEdgeList(node);
+
+        // only the nodes this one points to have it in their incoming list, and
+        // only the nodes pointing at it have it in their edge list
+        for (Edge<T> edge : out) {
+            if (edge.one != node)
+                swapRemove(inEdgeList(edge.one), edge.inSlot, true);
+            edge.slot = -1;
+        }
+        for (Edge<T> edge : in) {
+            if (edge.source != node)
+                swapRemove(edgeList(edge.source), edge.slot, false);
+            edge.slot = -1;
+        }
+
+        if (adjList.remove(node) == null) {
+            lookNode.set(node.getId(), null);
+            byId.set(node.getId(), null);
+            inById.set(node.getId(), null);
+            indexById.set(node.getId(), null);
+        } else {
+            inList.remove(node);
+            indexes.remove(node);
         }
+        size--;
 
         return node;
     }
@@ -114,16 +237,10 @@ public class AdjList<T> {
      *         node doesn't exist or if the edge itself doesn't exist
      */
     public boolean removeEdge(Node<T> nodeOne, Node<T> nodeTwo) {
-        if (!adjList.containsKey(nodeOne) || !adjList.containsKey(nodeTwo))
+        Edge<T> edge = findEdge(nodeOne, nodeTwo);
+        if (edge == null)
             return false;
-        ArrayList<Pair<Node<T>, Double>> edgeList = adjList.get(nodeOne);
-        for (int i = 0; i < edgeList.size(); i++) {
-            if (edgeList.get(i).one == nodeTwo) {
-                edgeList.remove(i);
-                return true;
-            }
-        }
-        return false;
+        return removeEdge(edge);
     }
 
     /**
@@ -135,9 +252,74 @@ public class AdjList<T> {
      *         edge does not exist
      */
     public boolean removeEdge(Node<T> nodeOne, Pair<Node<T>, Double> edge) {
-        if (!adjList.containsKey(nodeOne) || !adjList.containsKey(edge.one))
+        if (!edgeExists(nodeOne, edge))
             return false;
-        return adjList.get(nodeOne).remove(edge);
+        return removeEdge((Edge<T>) edge);
+    }
+
+    /**
+     * Removes a specific edge in O(1), even if there are parallel edges
+     * 
+     * @param edge The edge, from getEdges() or Graph.getEdge()
+     * @return Returns true if the edge was removed, false if it isn't in this
+     *         list (anymore)
+     */
+    public boolean removeEdge(Edge<T> edge) {
+        if (!owns(edge))
+            return false;
+        swapRemove(edgeList(edge.source), edge.slot, false);
+        swapRemove(inEdgeList(edge.one), edge.inSlot, true);
+        edge.slot = -1;
+        edge.inSlot = -1;
+        return true;
+    }
+
+    /**
+     * Finds the first edge from one node to another
+     * 
+     * @param nodeOne The SOURCE node
+     * @param nodeTwo The TARGET node
+     * @return Returns the edge, null if either node or the edge doesn't exist
+     */
+    public Edge<T> findEdge(Node<T> nodeOne, Node<T> nodeTwo) {
+        ArrayList<Edge<T>> edgeList = edgeList(nodeOne);
+        if (edgeList == null || edgeList(nodeTwo) == null)
+            return null;
+        NeighborIndex<T> index = neighborIndex(nodeOne);
+        if (index != null)
+            return index.get(nodeTwo);
+        for (Edge<T> edge : edgeList) {
+            if (edge.one == nodeTwo)
+                return edge;
+        }
+        return null;
+    }
+
+    /**
+     * Finds the smallest weight among the edges from one node to another
+     * 
+     * @param nodeOne The SOURCE node
+     * @param nodeTwo The TARGET node
+     * @return Returns the smallest weight, infinity if either node or the edge
+     *         doesn't exist
+     */
+    public double minWeight(Node<T> nodeOne, Node<T> nodeTwo) {
+        double min = Double.POSITIVE_INFINITY;
+        ArrayList<Edge<T>> edgeList = edgeList(nodeOne);
+        if (edgeList == null)
+            return min;
+        NeighborIndex<T> index = neighborIndex(nodeOne);
+        if (index != null) {
+            for (Edge<T> edge = index.get(nodeTwo); edge != null; edge = edge.nextSame) {
+                min = Math.min(min, edge.two);
+            }
+            return min;
+        }
+        for (Edge<T> edge : edgeList) {
+            if (edge.one == nodeTwo)
+                min = Math.min(min, edge.two);
+        }
+        return min;
     }
 
     /**
@@ -149,8 +331,13 @@ public class AdjList<T> {
      *         node doesn't exist or the edge doesn't exist
      */
     public boolean edgeExists(Node<T> nodeOne, Node<T> nodeTwo) {
-        ArrayList<Pair<Node<T>, Double>> edgeList = adjList.get(nodeOne);
-        for (Pair<Node<T>, Double> edge : edgeList) {
+        ArrayList<Edge<T>> edgeList = edgeList(nodeOne);
+        if (edgeList == null)
+            return false;
+        NeighborIndex<T> index = neighborIndex(nodeOne);
+        if (index != null)
+            return index.get(nodeTwo) != null;
+        for (Edge<T> edge : edgeList) {
             if (edge.one == nodeTwo)
                 return true;
         }
@@ -166,10 +353,34 @@ public class AdjList<T> {
      *         node doesn't exist
      */
     public boolean edgeExists(Node<T> node, Pair<Node<T>, Double> edge) {
-        if (!adjList.containsKey(node) || !adjList.containsKey(edge.one))
+        // every edge in the lists is an Edge, anything else was never added
+        if (!(edge instanceof Edge))
             return false;
+        Edge<T> e = (Edge<T>) edge;
+        return e.source == node && owns(e);
+    }
 
-        return adjList.get(node).contains(edge);
+    /**
+     * Detects if a given directed edge exists between two nodes by id
+     * 
+     * @param idOne Id of the SOURCE node
+     * @param idTwo Id of the TARGET node
+     * @return Returns true if an edge exists between the two nodes, false if
+     *         either id isn't in the list or the edge doesn't exist
+     */
+    public boolean edgeExists(int idOne, int idTwo) {
+        if (idOne < 0 || idOne >= byId.size() || idTwo < 0 || idTwo >= byId.size())
+            return false;
+        ArrayList<Edge<T>> edgeList = byId.get(idOne);
+        if (edgeList == null || byId.get(idTwo) == null)
+            return false;
+        if (indexById.get(idOne) != null)
+            return indexById.get(idOne).get(lookNode.get(idTwo)) != null;
+        for (Edge<T> edge : edgeList) {
+            if (edge.one.getId() == idTwo)
+                return true;
+        }
+        return false;
     }
 
     /**
@@ -179,47 +390,253 @@ public class AdjList<T> {
      *         null if the node does not exist
      */
     public List<Node<T>> getNeighbors(Node<T> node) {
-        if (!adjList.containsKey(node))
+        ArrayList<Edge<T>> edgeList = edgeList(node);
+        if (edgeList == null)
             return null;
-        ArrayList<Node<T>> neighbors = new ArrayList<>(adjList.get(node).size());
-        for (Pair<Node<T>, Double> edge : adjList.get(node)) {
+        ArrayList<Node<T>> neighbors = new ArrayList<>(edgeList.size());
+        for (Edge<T> edge : edgeList) {
             neighbors.add(edge.one);
         }
         return neighbors;
     }
 
+    /**
+     * @param node Gets all nodes that have an edge pointing to this node
+     * @return Returns a list of the SOURCE nodes of every edge into the given
+     *         node (repeated for parallel edges), or null if the node does not
+     *         exist
+     */
+    public List<Node<T>> getInNeighbors(Node<T> node) {
+        ArrayList<Edge<T>> in = inEdgeList(node);
+        if (in == null)
+            return null;
+        ArrayList<Node<T>> neighbors = new ArrayList<>(in.size());
+        for (Edge<T> edge : in) {
+            neighbors.add(edge.source);
+        }
+        return neighbors;
+    }
+
+    /**
+     * @param node Node to be checked
+     * @return Returns the number of edges pointing to the node, -1 if the node
+     *         doesn't exist
+     */
+    public int inDegree(Node<T> node) {
+        ArrayList<Edge<T>> in = inEdgeList(node);
+        return (in == null) ? -1 : in.size();
+    }
+
+    /**
+     * @param node Node to be checked
+     * @return Returns the number of edges leaving the node, -1 if the node
+     *         doesn't exist
+     */
+    public int outDegree(Node<T> node) {
+        ArrayList<Edge<T>> out = edgeList(node);
+        return (out == null) ? -1 : out.size();
+    }
+
+    /**
+     * Gets all edges pointing into this node
+     * 
+     * @param node Node which we want to find its incoming edges
+     * @return Returns a read only list of the edges (use getSource()), null if
+     *         the node does not exist
+     */
+    public List<Edge<T>> getInEdges(Node<T> node) {
+        ArrayList<Edge<T>> in = inEdgeList(node);
+        if (in == null)
+            return null;
+        return Collections.unmodifiableList(in);
+    }
+
     /**
      * Gets all edges this node has
      * 
      * @param node Node which we want to find its edges
-     * @return Returns the list of edges and their weights, null if the node does
-     *         not exist
+     * @return Returns a read only list of the edges and their weights (every
+     *         entry is an Edge), null if the node does not exist
      */
     public List<Pair<Node<T>, Double>> getEdges(Node<T> node) {
-        if (!adjList.containsKey(node))
+        ArrayList<Edge<T>> edgeList = edgeList(node);
+        if (edgeList == null)
             return null;
-        return adjList.get(node);
+        return Collections.unmodifiableList(edgeList);
+    }
+
+    /**
+     * Gets all edges of a node by id
+     * 
+     * @param id Id of the node
+     * @return Returns a read only list of the edges and their weights, null if no
+     *         node has that id in the list
+     */
+    public List<Pair<Node<T>, Double>> getEdges(int id) {
+        if (id < 0 || id >= byId.size() || byId.get(id) == null)
+            return null;
+        return Collections.unmodifiableList(byId.get(id));
     }
 
     /**
-     * @return Returns a list of all nodes in the graph
+     * @return Returns a list of all nodes in the graph, nodes with ids first in
+     *         id order
      */
     public List<Node<T>> getAllNodes() {
-        return new ArrayList<Node<T>>(adjList.keySet());
+        ArrayList<Node<T>> nodes = new ArrayList<>(size);
+        for (Node<T> node : lookNode) {
+            if (node != null)
+                nodes.add(node);
+        }
+        nodes.addAll(adjList.keySet());
+        return nodes;
     }
 
     /**
      * @return Returns the number of nodes in the graph
      */
     public int getSize() {
-        return adjList.size();
+        return size;
+    }
+
+    /**
+     * Freezes the list into a compressed sparse row snapshot for traversal heavy
+     * work. Changes made to the list afterwards aren't seen by the snapshot
+     * 
+     * @return Returns an immutable CSR copy of the current graph
+     */
+    public CSRGraph<T> freeze() {
+        return new CSRGraph<>(this);
+    }
+
+    /**
+     * @param degree Expected number of edges, 0 if unknown
+     * @return Returns an empty edge list
+     */
+    private ArrayList<Edge<T>> newEdgeList(int degree) {
+        return (degree > 0) ? new ArrayList<>(degree) : new ArrayList<>();
+    }
+
+    /**
+     * Finds the edge list of a node, by id when it has one
+     * 
+     * @param node Node to be found
+     * @return Returns the node's edge list, null if the node isn't in the list
+     */
+    private ArrayList<Edge<T>> edgeList(Node<T> node) {
+        int id = node.getId();
+        if (id >= 0 && id < lookNode.size() && lookNode.get(id) == node)
+            return byId.get(id);
+        return adjList.get(node);
+    }
+
+    /**
+     * Finds the incoming edge list of a node, by id when it has one
+     * 
+     * @param node Node to be found
+     * @return Returns the node's incoming list, null if the node isn't in the list
+     */
+    private ArrayList<Edge<T>> inEdgeList(Node<T> node) {
+        if (node == null)
+            return null;
+        int id = node.getId();
+        if (id >= 0 && id < lookNode.size() && lookNode.get(id) == node)
+            return inById.get(id);
+        return inList.get(node);
+    }
+
+    /**
+     * @param edge Edge to be checked
+     * @return Returns true if the edge is currently in this adjacency list
+     */
+    private boolean owns(Edge<T> edge) {
+        if (edge.slot < 0)
+            return false;
+        ArrayList<Edge<T>> edgeList = edgeList(edge.source);
+        return edgeList != null && edge.slot < edgeList.size() && edgeList.get(edge.slot) == edge;
+    }
+
+    /**
+     * Removes an entry by moving the last entry into its place
+     * 
+     * @param list     Edge list or incoming list
+     * @param index    Position to be removed
+     * @param incoming True if list is an incoming list (positions are inSlot)
+     */
+    private void swapRemove(ArrayList<Edge<T>> list, int index, boolean incoming) {
+        if (!incoming)
+            unindex(list.get(index), list.size() - 1);
+        Edge<T> last = list.remove(list.size() - 1);
+        if (index == list.size())
+            return;
+        list.set(index, last);
+        if (incoming)
+            last.inSlot = index;
+        else
+            last.slot = index;
+    }
+
+    /**
+     * Takes an edge out of its source's NeighborIndex, dropping the index when
+     * the source gets small enough to scan
+     * 
+     * @param edge Edge leaving its source's edge list
+     * @param left Number of edges the source has after the removal
+     */
+    private void unindex(Edge<T> edge, int left) {
+        NeighborIndex<T> index = neighborIndex(edge.source);
+        if (index == null)
+            return;
+        if (left >= HUB_DEGREE / 2) {
+            index.remove(edge);
+            return;
+        }
+        Node<T> node = edge.source;
+        int id = node.getId();
+        if (id >= 0 && id < lookNode.size() && lookNode.get(id) == node)
+            indexById.set(id, null);
+        else
+            indexes.remove(node);
+        // the chains aren't kept up to date without an index
+        for (Edge<T> e : edgeList(node)) {
+            e.nextSame = null;
+            e.prevSame = null;
+        }
+    }
+
+    /**
+     * Indexes a node's edge list by target
+     * 
+     * @param node     Node the edges belong to
+     * @param edgeList The node's edge list
+     */
+    private void buildIndex(Node<T> node, ArrayList<Edge<T>> edgeList) {
+        NeighborIndex<T> index = new NeighborIndex<>(edgeList.size());
+        for (Edge<T> edge : edgeList)
+            index.add(edge);
+        int id = node.getId();
+        if (id >= 0 && id < lookNode.size() && lookNode.get(id) == node)
+            indexById.set(id, index);
+        else
+            indexes.put(node, index);
+    }
+
+    /**
+     * @param node Node to be found
+     * @return Returns the node's NeighborIndex, null if it doesn't have one
+     */
+    private NeighborIndex<T> neighborIndex(Node<T> node) {
+        int id = node.getId();
+        if (id >= 0 && id < lookNode.size() && lookNode.get(id) == node)
+            return indexById.get(id);
+        return indexes.isEmpty() ? null : indexes.get(node);
     }
 
     public String toString() {
         String res = "";
-        for (var pair : adjList.entrySet()) {
-            res += pair.getKey().getVal() + ": ";
-            for (Pair<Node<T>, Double> edge : pair.getValue()) {
+        for (Node<T> node : getAllNodes()) {
+            res += node.getVal() + ": ";
+            for (Edge<T> edge : edgeList(node)) {
                 res += "(" + edge.one.getVal() + ", " + edge.two + ") ";
             }
             res += "\n";
@@ -239,4 +656,4 @@ public class AdjList<T> {
  * get all nodes
  * get amount of connected nodes
  * 
- */
\ No newline at end of file
+ */
@@ -1,15 +1,30 @@
 import java.util.ArrayList;
-import java.util.Collection;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Adjacency Matrix Class
  * 
+ * Simple matrices store each row as a long[] bitset, multigraph matrices store
+ * edge counts in one flat int[] (no boxed Integer per cell). Both double their
+ * capacity when full
+ * 
+ * Weighted matrices also keep one flat double[] with the same stride holding
+ * the weight of each cell (the smallest one if there are parallel edges,
+ * infinity if there is no edge), which is what allPairs() runs on. That's
+ * 8 bytes a cell on top of the bits, so it's off unless asked for
+ * (setWeighted())
+ * 
  * Member Methods:
  * - addNode(Node<T> a)
  * - addEdge(Node<T> a, Node<T> b)
+ * - addEdge(Node<T> a, Node<T> b, double weight)
+ * - setWeight(Node<T> a, Node<T> b, double weight)
+ * - getWeight(Node<T> a, Node<T> b)
+ * - allPairs(ForkJoinPool pool)
+ * - triangles(ForkJoinPool pool)
  * - removeNode(Node<T> a)
  * - removeEdge(Node<T> a, Node<T> b)
  * - getNeighbors()
@@ -17,6 +32,20 @@ import java.util.List;
  * - containsNode(Node<T> node)
  * - toString()
  * - edgeExists(Node<T> a, Node<T> b)
+ * - edgeExists(int idOne, int idTwo)
+ * - ensureCapacity(int nodes)
+ * - setSlotReuse(boolean reuseSlots)
+ * - setWeighted(boolean weighted)
+ * - compact()
+ * - getSize()
+ * 
+ * Nodes with an id from their graph are found through idIndex (a plain array)
+ * instead of hashing, nodes without one fall back to lookIndex
+ * 
+ * With slot reuse on, removing a node just clears its row and column and
+ * leaves a hole (null in lookNode) that the next addNode fills. Holes get
+ * squeezed out by compact() once more than half the slots are free, keeping
+ * the order of the remaining nodes
  * 
  * @author Milian Ingco
  * @version 1.0
@@ -24,54 +53,102 @@ import java.util.List;
  */
 public class AdjMat<T> {
 
-    private ArrayList<ArrayList<Integer>> matrix;
+    // simple graphs keep one bitset row per node, multigraphs keep a flat count
+    // matrix with a row stride of capacity
+    private final boolean simple;
+    private long[][] bits;
+    private int[] counts;
+    // null unless weighted
+    private boolean weighted;
+    private double[] weights;
+
     private HashMap<Node<T>, Integer> lookIndex;
     private ArrayList<Node<T>> lookNode;
+    private int[] idIndex;
 
     private int capacity = 1;
 
+    private boolean reuseSlots;
+    private int[] freeSlots = new int[0];
+    private int freeCount;
+
+    /**
+     * Creates an adjacency matrix that counts parallel edges
+     */
     AdjMat() {
-        matrix = new ArrayList<>(capacity);
+        this(false);
+    }
+
+    /**
+     * Creates an adjacency matrix
+     * 
+     * @param simple True to store each cell as a single bit (no parallel edges),
+     *               false to store an edge count per cell
+     */
+    AdjMat(boolean simple) {
+        this(simple, false);
+    }
+
+    /**
+     * Creates an adjacency matrix
+     * 
+     * @param simple   True to store each cell as a single bit (no parallel
+     *                 edges), false to store an edge count per cell
+     * @param weighted True to also store the weight of each cell
+     */
+    AdjMat(boolean simple, boolean weighted) {
+        this.simple = simple;
+        this.weighted = weighted;
+        if (simple)
+            bits = new long[capacity][];
+        else
+            counts = new int[capacity * capacity];
+        if (weighted) {
+            weights = new double[capacity * capacity];
+            Arrays.fill(weights, Double.POSITIVE_INFINITY);
+        }
         lookIndex = new HashMap<>();
         lookNode = new ArrayList<>();
+        idIndex = new int[0];
     }
 
     /**
      * Adds node to the graph
-     * Supposedly should be amortized O(log n) because it fills up and resizes log2
-     * n or smth
+     * New rows and columns are already zeroed so this is O(1) unless the matrix
+     * has to double, which makes it amortized O(n) (the copy is n^2 every
+     * doubling)
      * 
      * @param node Node to be added
      * @return Returns false if the node already exists, returns true if successful
      */
     public boolean addNode(Node<T> node) {
-        if (lookIndex.containsKey(node))
+        if (indexOf(node) >= 0)
             return false;
 
-        lookIndex.put(node, lookNode.size());
-        lookNode.add(node);
-
-        if (lookNode.size() == capacity) {
+        int index = (freeCount > 0) ? freeSlots[--freeCount] : lookNode.size();
+        if (index == capacity) {
             // System.out.println("RESIZED MATRIX");
-            resize(matrix);
+            resize(capacity * 2);
         }
-        matrix.add(new ArrayList<>(Collections.nCopies(lookNode.size(), 0)) {
-            {
-                ensureCapacity(capacity);
-            }
-        });
 
-        for (int i = 0; i < matrix.size() - 1; i++) {
-            matrix.get(i).add(0);
+        int id = node.getId();
+        if (id >= idIndex.length) {
+            int old = idIndex.length;
+            idIndex = Arrays.copyOf(idIndex, Math.max(id + 1, old * 2));
+            Arrays.fill(idIndex, old, idIndex.length, -1);
         }
-
-        // for (ArrayList<Integer> i : matrix) {
-        // for (Integer n : i) {
-        // System.out.print(n + " ");
-        // }
-        // System.out.println();
-        // }
-        // System.out.println("--------------");
+        // a second node claiming the same id (from another graph) gets hashed
+        if (id >= 0 && idIndex[id] < 0)
+            idIndex[id] = index;
+        else
+            lookIndex.put(node, index);
+        if (index == lookNode.size())
+            lookNode.add(node);
+        else
+            lookNode.set(index, node);
+
+        if (simple && bits[index] == null)
+            bits[index] = new long[words(capacity)];
 
         return true;
     }
@@ -85,32 +162,75 @@ public class AdjMat<T> {
      * @return Returns node removed, null if not successful
      */
     public Node<T> removeNode(Node<T> node) {
-        if (!lookIndex.containsKey(node))
+        int index = indexOf(node);
+        if (index < 0)
             return null;
-        int index = lookIndex.get(node);
+        int size = lookNode.size();
+
+        if (lookIndex.remove(node) == null)
+            idIndex[node.getId()] = -1;
+
+        if (reuseSlots) {
+            // O(n) to clear the row and column instead of O(n^2) to shift
+            clearSlot(index, size);
+            lookNode.set(index, null);
+            if (freeCount == freeSlots.length)
+                freeSlots = Arrays.copyOf(freeSlots, Math.max(4, freeCount * 2));
+            freeSlots[freeCount++] = index;
+            if (freeCount * 2 > size)
+                compact();
+            return node;
+        }
 
-        lookIndex.remove(node);
         Node<T> del = lookNode.remove(index);
 
-        lookIndex.forEach((K, V) -> {
-            if (V > index)
-                lookIndex.put(K, V - 1);
-        });
+        // only the nodes after the removed one move
+        for (int i = index; i < size - 1; i++) {
+            Node<T> moved = lookNode.get(i);
+            int id = moved.getId();
+            if (id >= 0 && id < idIndex.length && idIndex[id] == i + 1)
+                idIndex[id] = i;
+            else
+                lookIndex.put(moved, i);
+        }
 
-        // System.out.println(node);
-        // System.out.println(matrix.size());
-        matrix.remove(index);
-        for (int i = 0; i < matrix.size(); i++) {
-            // System.out.println(i + " " + matrix.size());
-            matrix.get(i).remove(index);
+        if (simple) {
+            // drop the row, keep the cleared array around for the next addNode
+            long[] row = bits[index];
+            System.arraycopy(bits, index + 1, bits, index, size - index - 1);
+            Arrays.fill(row, 0L);
+            bits[size - 1] = row;
+            for (int i = 0; i < size - 1; i++) {
+                removeBit(bits[i], index, size);
+            }
+        } else {
+            // shift the rows below up, then the columns to the right left
+            System.arraycopy(counts, (index + 1) * capacity, counts, index * capacity,
+                    (size - index - 1) * capacity);
+            Arrays.fill(counts, (size - 1) * capacity, size * capacity, 0);
+            for (int i = 0; i < size - 1; i++) {
+                int row = i * capacity;
+                System.arraycopy(counts, row + index + 1, counts, row + index, size - index - 1);
+                counts[row + size - 1] = 0;
+            }
+        }
+        if (weighted) {
+            System.arraycopy(weights, (index + 1) * capacity, weights, index * capacity,
+                    (size - index - 1) * capacity);
+            Arrays.fill(weights, (size - 1) * capacity, size * capacity, Double.POSITIVE_INFINITY);
+            for (int i = 0; i < size - 1; i++) {
+                int row = i * capacity;
+                System.arraycopy(weights, row + index + 1, weights, row + index, size - index - 1);
+                weights[row + size - 1] = Double.POSITIVE_INFINITY;
+            }
         }
-        // System.out.println("--------");
 
         return del;
     }
 
     /**
-     * Creates a directional edge from nodeOne to nodeTwo
+     * Creates a directional edge from nodeOne to nodeTwo. In a simple matrix
+     * adding an edge that already exists leaves it at one
      * 
      * @param nodeOne The SOURCE node
      * @param nodeTwo The TARGET node
@@ -118,16 +238,151 @@ public class AdjMat<T> {
      *         was successful
      */
     public boolean addEdge(Node<T> nodeOne, Node<T> nodeTwo) {
-        if (!lookIndex.containsKey(nodeOne) || !lookIndex.containsKey(nodeTwo))
+        int indexOne = indexOf(nodeOne);
+        int indexTwo = indexOf(nodeTwo);
+        if (indexOne < 0 || indexTwo < 0)
             return false;
 
-        int indexOne = lookIndex.get(nodeOne);
-        int indexTwo = lookIndex.get(nodeTwo);
-        int currentEdges = matrix.get(indexOne).get(indexTwo);
-        matrix.get(indexOne).set(indexTwo, currentEdges + 1);
+        if (simple)
+            bits[indexOne][indexTwo >>> 6] |= 1L << indexTwo;
+        else
+            counts[indexOne * capacity + indexTwo]++;
+        return true;
+    }
+
+    /**
+     * Creates a weighted directional edge from nodeOne to nodeTwo. The cell
+     * keeps the smallest weight of its parallel edges
+     * 
+     * @param nodeOne The SOURCE node
+     * @param nodeTwo The TARGET node
+     * @param weight  Weight of the edge
+     * @return Returns false if either node doesn't exist, true if creating the edge
+     *         was successful
+     */
+    public boolean addEdge(Node<T> nodeOne, Node<T> nodeTwo, double weight) {
+        if (!addEdge(nodeOne, nodeTwo))
+            return false;
+        if (weighted) {
+            int cell = indexOf(nodeOne) * capacity + indexOf(nodeTwo);
+            weights[cell] = Math.min(weights[cell], weight);
+        }
+        return true;
+    }
+
+    /**
+     * Overwrites the weight of a cell, used when the smallest of several
+     * parallel edges is removed and the next smallest takes over
+     * 
+     * @param nodeOne The SOURCE node
+     * @param nodeTwo The TARGET node
+     * @param weight  New weight of the cell
+     * @return Returns false if the matrix isn't weighted, either node doesn't
+     *         exist or there is no edge, true otherwise
+     */
+    public boolean setWeight(Node<T> nodeOne, Node<T> nodeTwo, double weight) {
+        int indexOne = indexOf(nodeOne);
+        int indexTwo = indexOf(nodeTwo);
+        if (!weighted || indexOne < 0 || indexTwo < 0 || cell(indexOne, indexTwo) < 1)
+            return false;
+        weights[indexOne * capacity + indexTwo] = weight;
         return true;
     }
 
+    /**
+     * Gets the weight of a directed edge
+     * 
+     * @param nodeOne The SOURCE node
+     * @param nodeTwo The TARGET node
+     * @return Returns the weight (the smallest one if there are parallel edges),
+     *         1.0 for an edge in a matrix that isn't weighted, infinity if either
+     *         node or the edge doesn't exist
+     */
+    public double getWeight(Node<T> nodeOne, Node<T> nodeTwo) {
+        int indexOne = indexOf(nodeOne);
+        int indexTwo = indexOf(nodeTwo);
+        if (indexOne < 0 || indexTwo < 0 || cell(indexOne, indexTwo) < 1)
+            return Double.POSITIVE_INFINITY;
+        return weighted ? weights[indexOne * capacity + indexTwo] : 1.0;
+    }
+
+    /**
+     * Computes shortest distances between every pair of nodes, see AllPairs.
+     * Unweighted matrices count every edge as 1
+     * 
+     * @param pool Pool to split the work across
+     * @return Returns the distances and next hops, nodes in getAllNodes() order
+     */
+    public AllPairs<T> allPairs(ForkJoinPool pool) {
+        int[] slots = new int[getSize()];
+        for (int i = 0, k = 0; i < lookNode.size(); i++) {
+            if (lookNode.get(i) != null)
+                slots[k++] = i;
+        }
+        int n = slots.length;
+        int stride = AllPairs.stride(n);
+        double[] dist = new double[stride * stride];
+        Arrays.fill(dist, Double.POSITIVE_INFINITY);
+        for (int i = 0; i < n; i++) {
+            int row = i * stride;
+            for (int j = 0; j < n; j++) {
+                if (weighted)
+                    dist[row + j] = weights[slots[i] * capacity + slots[j]];
+                else if (cell(slots[i], slots[j]) > 0)
+                    dist[row + j] = 1.0;
+            }
+        }
+        return new AllPairs<>(getAllNodes(), dist, stride, pool);
+    }
+
+    /**
+     * Counts triangles by ANDing bitset rows, see Triangles. Edges count both
+     * ways and once however many parallel edges there are
+     * 
+     * @param pool Pool to split the work across
+     * @return Returns the counts, nodes in getAllNodes() order
+     */
+    public Triangles<T> triangles(ForkJoinPool pool) {
+        // slot to dense index, holes left by slot reuse map to -1
+        int size = lookNode.size();
+        int[] dense = new int[size];
+        int n = 0;
+        for (int i = 0; i < size; i++) {
+            dense[i] = (lookNode.get(i) != null) ? n++ : -1;
+        }
+        // symmetric rows without self loops
+        long[][] rows = new long[n][words(n)];
+        for (int i = 0; i < size; i++) {
+            int u = dense[i];
+            if (u < 0)
+                continue;
+            if (simple) {
+                long[] row = bits[i];
+                for (int w = 0; w < words(size); w++) {
+                    long word = row[w];
+                    while (word != 0) {
+                        int v = dense[(w << 6) + Long.numberOfTrailingZeros(word)];
+                        word &= word - 1;
+                        if (v >= 0 && v != u) {
+                            rows[u][v >>> 6] |= 1L << v;
+                            rows[v][u >>> 6] |= 1L << u;
+                        }
+                    }
+                }
+            } else {
+                int row = i * capacity;
+                for (int j = 0; j < size; j++) {
+                    int v = dense[j];
+                    if (counts[row + j] > 0 && v >= 0 && v != u) {
+                        rows[u][v >>> 6] |= 1L << v;
+                        rows[v][u >>> 6] |= 1L << u;
+                    }
+                }
+            }
+        }
+        return Triangles.count(getAllNodes(), rows, pool);
+    }
+
     /**
      * Removes a directional edge from nodeOne to nodeTwo
      * 
@@ -137,31 +392,198 @@ public class AdjMat<T> {
      *         exist. True otherwise
      */
     public boolean removeEdge(Node<T> nodeOne, Node<T> nodeTwo) {
-        if (!lookIndex.containsKey(nodeOne) || !lookIndex.containsKey(nodeTwo))
+        int indexOne = indexOf(nodeOne);
+        int indexTwo = indexOf(nodeTwo);
+        if (indexOne < 0 || indexTwo < 0)
             return false;
 
-        int indexOne = lookIndex.get(nodeOne);
-        int indexTwo = lookIndex.get(nodeTwo);
-        int numEdges = matrix.get(indexOne).get(indexTwo);
-
-        if (numEdges < 1)
+        if (cell(indexOne, indexTwo) < 1)
             return false;
 
-        matrix.get(indexOne).set(indexTwo, numEdges - 1);
+        if (simple)
+            bits[indexOne][indexTwo >>> 6] &= ~(1L << indexTwo);
+        else
+            counts[indexOne * capacity + indexTwo]--;
+        if (weighted && cell(indexOne, indexTwo) == 0)
+            weights[indexOne * capacity + indexTwo] = Double.POSITIVE_INFINITY;
         return true;
     }
 
+    /**
+     * Gets all nodes a given node has an edge pointing to. Each target shows up
+     * once no matter how many parallel edges there are
+     * 
+     * @param node The SOURCE node
+     * @return Returns the list of TARGET nodes, null if the node doesn't exist
+     */
     public List<Node<T>> getNeighbors(Node<T> node) {
-        return null;
+        int index = indexOf(node);
+        if (index < 0)
+            return null;
+
+        ArrayList<Node<T>> neighbors = new ArrayList<>();
+        if (simple) {
+            long[] row = bits[index];
+            for (int w = 0; w < words(lookNode.size()); w++) {
+                long word = row[w];
+                while (word != 0) {
+                    neighbors.add(lookNode.get((w << 6) + Long.numberOfTrailingZeros(word)));
+                    word &= word - 1;
+                }
+            }
+        } else {
+            int row = index * capacity;
+            for (int i = 0; i < lookNode.size(); i++) {
+                if (counts[row + i] > 0)
+                    neighbors.add(lookNode.get(i));
+            }
+        }
+        return neighbors;
     }
 
     /**
-     * !! NOT A DEEP OR SHALLOW COPY MIGHT WANNA CHANGE THAT !!
+     * Turns slot reuse on or off. Turning it off compacts the matrix
+     * 
+     * With it on, nodes added after a removal go in the freed slots rather than
+     * at the end, so getAllNodes() (and the node order of allPairs() and
+     * triangles()) is slot order, no longer the order nodes were added in
+     * 
+     * @param reuseSlots True to leave holes on removeNode() and fill them on
+     *                   addNode(), false to shift everything down like before
+     */
+    public void setSlotReuse(boolean reuseSlots) {
+        if (!reuseSlots)
+            compact();
+        this.reuseSlots = reuseSlots;
+    }
+
+    /**
+     * Turns the weight matrix on or off. Turned on, every cell starts out at
+     * infinity and the caller fills in the weights of existing edges with
+     * setWeight(), edges added afterwards keep it up to date
+     * 
+     * @param weighted True to keep a weight per cell, false to drop them
+     */
+    public void setWeighted(boolean weighted) {
+        if (weighted == this.weighted)
+            return;
+        if (weighted) {
+            weights = new double[capacity * capacity];
+            Arrays.fill(weights, Double.POSITIVE_INFINITY);
+        } else {
+            weights = null;
+        }
+        this.weighted = weighted;
+    }
+
+    /**
+     * Squeezes out the holes left by removed nodes. Remaining nodes keep their
+     * relative order, O(n^2)
+     */
+    public void compact() {
+        if (freeCount == 0)
+            return;
+        int size = lookNode.size();
+        int[] newIndex = new int[size];
+        int live = 0;
+        for (int i = 0; i < size; i++) {
+            newIndex[i] = (lookNode.get(i) == null) ? -1 : live++;
+        }
+
+        if (simple) {
+            long[] scratch = new long[words(capacity)];
+            for (int i = 0; i < size; i++) {
+                if (newIndex[i] < 0)
+                    continue;
+                long[] row = bits[i];
+                Arrays.fill(scratch, 0L);
+                for (int w = 0; w < words(size); w++) {
+                    long word = row[w];
+                    while (word != 0) {
+                        int k = (w << 6) + Long.numberOfTrailingZeros(word);
+                        scratch[newIndex[k] >>> 6] |= 1L << newIndex[k];
+                        word &= word - 1;
+                    }
+                }
+                System.arraycopy(scratch, 0, row, 0, scratch.length);
+                // rows only move down, the row being replaced is a hole or
+                // already moved
+                bits[i] = bits[newIndex[i]];
+                bits[newIndex[i]] = row;
+            }
+            for (int i = live; i < size; i++) {
+                Arrays.fill(bits[i], 0L);
+            }
+        } else {
+            // cells only ever move to a lower position, so copying in row major
+            // order never overwrites a cell that hasn't been read yet
+            for (int i = 0; i < size; i++) {
+                if (newIndex[i] < 0)
+                    continue;
+                int from = i * capacity;
+                int to = newIndex[i] * capacity;
+                for (int k = 0; k < size; k++) {
+                    if (newIndex[k] >= 0)
+                        counts[to + newIndex[k]] = counts[from + k];
+                }
+                Arrays.fill(counts, to + live, to + size, 0);
+            }
+            Arrays.fill(counts, live * capacity, size * capacity, 0);
+        }
+        if (weighted) {
+            // same walk as the counts
+            for (int i = 0; i < size; i++) {
+                if (newIndex[i] < 0)
+                    continue;
+                int from = i * capacity;
+                int to = newIndex[i] * capacity;
+                for (int k = 0; k < size; k++) {
+                    if (newIndex[k] >= 0)
+                        weights[to + newIndex[k]] = weights[from + k];
+                }
+                Arrays.fill(weights, to + live, to + size, Double.POSITIVE_INFINITY);
+            }
+            Arrays.fill(weights, live * capacity, size * capacity, Double.POSITIVE_INFINITY);
+        }
+
+        for (int i = 0; i < size; i++) {
+            Node<T> node = lookNode.get(i);
+            if (node == null || newIndex[i] == i)
+                continue;
+            lookNode.set(newIndex[i], node);
+            int id = node.getId();
+            if (id >= 0 && id < idIndex.length && idIndex[id] == i)
+                idIndex[id] = newIndex[i];
+            else
+                lookIndex.put(node, newIndex[i]);
+        }
+        for (int i = size - 1; i >= live; i--) {
+            lookNode.remove(i);
+        }
+        freeCount = 0;
+    }
+
+    /**
+     * @return Returns the number of nodes in the matrix
+     */
+    public int getSize() {
+        return lookNode.size() - freeCount;
+    }
+
+    /**
+     * Shallow copy, changing the list doesn't change the matrix. Nodes are in
+     * slot order, which is the order they were added in unless slot reuse put
+     * some of them in the slots of removed nodes
      * 
      * @return Returns the list of all nodes in the graph
      */
     public ArrayList<Node<T>> getAllNodes() {
-        return lookNode;
+        ArrayList<Node<T>> nodes = new ArrayList<>(getSize());
+        for (Node<T> node : lookNode) {
+            if (node != null)
+                nodes.add(node);
+        }
+        return nodes;
     }
 
     /**
@@ -171,7 +593,7 @@ public class AdjMat<T> {
      * @return Returns true if the node exists, false if otherwise
      */
     public boolean containsNode(Node<T> node) {
-        return lookIndex.containsKey(node);
+        return indexOf(node) >= 0;
     }
 
     /**
@@ -183,27 +605,56 @@ public class AdjMat<T> {
      *         does not exist
      */
     public int edgeExists(Node<T> nodeOne, Node<T> nodeTwo) {
-        if (!lookIndex.containsKey(nodeOne) || !lookIndex.containsKey(nodeTwo))
+        int indexOne = indexOf(nodeOne);
+        int indexTwo = indexOf(nodeTwo);
+        if (indexOne < 0 || indexTwo < 0)
             return -1;
-        return matrix.get(lookIndex.get(nodeOne)).get(lookIndex.get(nodeTwo));
+        return cell(indexOne, indexTwo);
+    }
+
+    /**
+     * Checks if the graph contains a given directed edge by node id
+     * 
+     * @param idOne Id of the SOURCE node
+     * @param idTwo Id of the TARGET node
+     * @return Returns the number of edges between the two nodes, -1 if either id
+     *         isn't in the matrix
+     */
+    public int edgeExists(int idOne, int idTwo) {
+        if (idOne < 0 || idTwo < 0 || idOne >= idIndex.length || idTwo >= idIndex.length)
+            return -1;
+        int indexOne = idIndex[idOne];
+        int indexTwo = idIndex[idTwo];
+        if (indexOne < 0 || indexTwo < 0)
+            return -1;
+        return cell(indexOne, indexTwo);
     }
 
     public String toString() {
-        if (lookNode.size() < 1)
+        if (getSize() < 1)
             return "empty";
 
+        // skip holes left by slot reuse
+        int[] slots = new int[lookNode.size()];
+        int live = 0;
+        for (int i = 0; i < lookNode.size(); i++) {
+            if (lookNode.get(i) != null)
+                slots[live++] = i;
+        }
+        slots = Arrays.copyOf(slots, live);
+
         String str = "";
 
         // find largest digit number / value which is size of boxes + 2
         int max = -1;
-        for (Node<T> node : lookNode) {
-            int len = node.getVal().toString().length();
+        for (int slot : slots) {
+            int len = lookNode.get(slot).getVal().toString().length();
             max = (len > max) ? len : max;
         }
 
-        for (int i = 0; i < matrix.size(); i++) {
-            for (int n = 0; n < matrix.get(i).size(); n++) {
-                int len = matrix.get(i).get(n).toString().length();
+        for (int i = 0; i < slots.length; i++) {
+            for (int n = 0; n < slots.length; n++) {
+                int len = String.valueOf(cell(slots[i], slots[n])).length();
                 max = (len > max) ? len : max;
             }
         }
@@ -216,8 +667,8 @@ public class AdjMat<T> {
         str += gap + "|";
 
         // PRINT COLUMN LABELS
-        for (int i = 0; i < lookNode.size(); i++) {
-            String value = lookNode.get(i).getVal().toString();
+        for (int i = 0; i < slots.length; i++) {
+            String value = lookNode.get(slots[i]).getVal().toString();
             str += gap.substring(0, (max - value.length()) / 2);
             str += value;
             str += gap.substring(0, (max - value.length() + 1) / 2);
@@ -226,23 +677,23 @@ public class AdjMat<T> {
 
         // PRINT DIVIDER
         str += "\n";
-        for (int i = 0; i < lookNode.size() + 1; i++) {
+        for (int i = 0; i < slots.length + 1; i++) {
             str += String.valueOf("-").repeat(max);
             str += "+";
         }
 
-        for (int i = 0; i < lookNode.size(); i++) {
+        for (int i = 0; i < slots.length; i++) {
             // PRINT ROW LABELS
             str += "\n";
-            String value = lookNode.get(i).getVal().toString();
+            String value = lookNode.get(slots[i]).getVal().toString();
             str += gap.substring(0, (max - value.length()) / 2);
             str += value;
             str += gap.substring(0, (max - value.length() + 1) / 2);
             str += "|";
 
             // PRINT EDGE VALUES
-            for (int n = 0; n < lookNode.size(); n++) {
-                String edges = matrix.get(i).get(n).toString();
+            for (int n = 0; n < slots.length; n++) {
+                String edges = String.valueOf(cell(slots[i], slots[n]));
                 str += gap.substring(0, (max - edges.length()) / 2);
                 str += edges;
                 str += gap.substring(0, (max - edges.length() + 1) / 2);
@@ -254,16 +705,126 @@ public class AdjMat<T> {
     }
 
     /**
-     * Resizes the array to be twice the initial size
+     * Grows the matrix once so it can hold a number of nodes without resizing
+     * 
+     * @param nodes Total number of nodes the matrix should fit
+     */
+    public void ensureCapacity(int nodes) {
+        if (nodes > capacity)
+            resize(nodes);
+    }
+
+    /**
+     * Finds the matrix index of a node, by id when it has one
      * 
-     * @param matrix 2D ArrayList to be resized
+     * @param node Node to be found
+     * @return Returns the matrix index, -1 if the node isn't in the matrix
      */
-    private void resize(ArrayList<ArrayList<Integer>> matrix) {
-        capacity *= 2;
-        matrix.ensureCapacity(capacity);
-        for (int i = 0; i < matrix.size(); i++) {
-            matrix.get(i).ensureCapacity(capacity);
+    private int indexOf(Node<T> node) {
+        int id = node.getId();
+        if (id >= 0 && id < idIndex.length) {
+            int index = idIndex[id];
+            if (index >= 0 && lookNode.get(index) == node)
+                return index;
+        }
+        Integer index = lookIndex.get(node);
+        return (index == null) ? -1 : index;
+    }
+
+    /**
+     * Zeroes the row and column of a slot
+     * 
+     * @param index Slot to be cleared
+     * @param size  Number of slots in use
+     */
+    private void clearSlot(int index, int size) {
+        if (simple) {
+            Arrays.fill(bits[index], 0L);
+            for (int i = 0; i < size; i++) {
+                bits[i][index >>> 6] &= ~(1L << index);
+            }
+        } else {
+            Arrays.fill(counts, index * capacity, index * capacity + size, 0);
+            for (int i = 0; i < size; i++) {
+                counts[i * capacity + index] = 0;
+            }
+        }
+        if (weighted) {
+            Arrays.fill(weights, index * capacity, index * capacity + size, Double.POSITIVE_INFINITY);
+            for (int i = 0; i < size; i++) {
+                weights[i * capacity + index] = Double.POSITIVE_INFINITY;
+            }
+        }
+    }
+
+    /**
+     * Reads a single cell by matrix index
+     * 
+     * @param indexOne Row (SOURCE) index
+     * @param indexTwo Column (TARGET) index
+     * @return Returns the number of edges in the cell
+     */
+    private int cell(int indexOne, int indexTwo) {
+        if (simple)
+            return (int) (bits[indexOne][indexTwo >>> 6] >>> indexTwo) & 1;
+        return counts[indexOne * capacity + indexTwo];
+    }
+
+    /**
+     * Removes bit index from a row, shifting every bit above it down by one
+     * 
+     * @param row   Bitset row
+     * @param index Bit to be removed
+     * @param size  Number of bits in use before the removal
+     */
+    private static void removeBit(long[] row, int index, int size) {
+        int w = index >>> 6;
+        long low = (1L << index) - 1;
+        row[w] = (row[w] & low) | ((row[w] >>> 1) & ~low);
+        for (int i = w + 1; i < words(size); i++) {
+            row[i - 1] |= row[i] << 63;
+            row[i] >>>= 1;
+        }
+    }
+
+    /**
+     * @param bitCount Number of bits
+     * @return Returns the number of longs needed to hold that many bits
+     */
+    private static int words(int bitCount) {
+        return (bitCount + 63) >>> 6;
+    }
+
+    /**
+     * Grows the matrix to a new capacity, copying the occupied rows and columns
+     * 
+     * @param newCapacity Capacity after the resize
+     */
+    private void resize(int newCapacity) {
+        int size = lookNode.size();
+        if (simple) {
+            long[][] grown = new long[newCapacity][];
+            for (int i = 0; i < bits.length; i++) {
+                if (bits[i] != null)
+                    grown[i] = Arrays.copyOf(bits[i], words(newCapacity));
+            }
+            bits = grown;
+        } else {
+            int[] grown = new int[newCapacity * newCapacity];
+            for (int i = 0; i < size; i++) {
+                System.arraycopy(counts, i * capacity, grown, i * newCapacity, size);
+            }
+            counts = grown;
+        }
+        if (weighted) {
+            double[] grown = new double[newCapacity * newCapacity];
+            Arrays.fill(grown, Double.POSITIVE_INFINITY);
+            for (int i = 0; i < size; i++) {
+                System.arraycopy(weights, i * capacity, grown, i * newCapacity, size);
+            }
+            weights = grown;
         }
+        capacity = newCapacity;
     }
 
 }
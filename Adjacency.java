@@ -0,0 +1,72 @@
+/**
+ * Read only CSR style access to a graph's edges by dense node index
+ *
+ * The edges leaving node i sit at positions edgeStart(i) .. edgeEnd(i) - 1.
+ * Everything is ints and doubles, so traversals written against this run the
+ * same on a CSRGraph on the heap, a MappedGraph straight out of a file and an
+ * OffHeapAdjList in direct memory. Only go through the rows: CSRGraph and
+ * MappedGraph number edges 0 .. getEdgeCount() - 1 and sort each row by
+ * target, but OffHeapAdjList's rows are unsorted and have gaps between them
+ *
+ * Member Methods:
+ * - getSize()
+ * - getEdgeCount()
+ * - degree(int index)
+ * - edgeStart(int index)
+ * - edgeEnd(int index)
+ * - edgeTarget(int edge)
+ * - edgeWeight(int edge)
+ * - edgeId(int edge)
+ *
+ * @version 1.0
+ */
+public interface Adjacency {
+
+    /**
+     * @return Returns the number of nodes
+     */
+    int getSize();
+
+    /**
+     * @return Returns the number of directed edges, undirected edges count
+     *         twice
+     */
+    int getEdgeCount();
+
+    /**
+     * @param index Dense index of the node
+     * @return Returns the number of edges leaving the node
+     */
+    int degree(int index);
+
+    /**
+     * @param index Dense index of the node
+     * @return Returns the position of the first edge leaving the node
+     */
+    int edgeStart(int index);
+
+    /**
+     * @param index Dense index of the node
+     * @return Returns the position one past the last edge leaving the node
+     */
+    int edgeEnd(int index);
+
+    /**
+     * @param edge Position of the edge
+     * @return Returns the dense index of the TARGET node of the edge
+     */
+    int edgeTarget(int edge);
+
+    /**
+     * @param edge Position of the edge
+     * @return Returns the weight of the edge
+     */
+    double edgeWeight(int edge);
+
+    /**
+     * @param edge Position of the edge
+     * @return Returns the id the graph gave the edge, -1 if it has none
+     */
+    int edgeId(int edge);
+
+}
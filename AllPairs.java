@@ -0,0 +1,257 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Shortest distances and next hops between every pair of nodes
+ *
+ * Made by AdjMat.allPairs() (or Graph.allPairs()). Floyd-Warshall over a flat
+ * n x n double[] in tiles of BLOCK x BLOCK (32KB, small enough to stay in
+ * cache while it's reused BLOCK times). For every block k along the diagonal
+ * the diagonal tile goes first, then the other tiles in row k and column k
+ * (in parallel), then every remaining tile (in parallel), which is the same
+ * result as the plain triple loop. O(n^3) time and two n x n arrays, meant
+ * for small dense graphs, a few thousand nodes
+ *
+ * Nodes are numbered in the order the matrix had them (getNode(), indexOf())
+ *
+ * Member Methods:
+ * - getSize()
+ * - indexOf(Node<T> node)
+ * - getNode(int index)
+ * - distance(int from, int to)
+ * - distance(Node<T> from, Node<T> to)
+ * - nextHop(int from, int to)
+ * - pathTo(int from, int to, int[] path)
+ * - getPath(Node<T> from, Node<T> to)
+ * - hasNegativeCycle()
+ *
+ * @version 1.0
+ */
+public class AllPairs<T> {
+
+    private static final int BLOCK = 64;
+
+    private final ArrayList<Node<T>> nodes;
+    private final HashMap<Node<T>, Integer> lookIndex;
+    private final int n;
+    // rows are padded to a multiple of BLOCK
+    private final int stride;
+    private final double[] dist;
+    private final int[] next;
+    private final boolean negativeCycle;
+
+    /**
+     * Runs Floyd-Warshall on a distance matrix
+     *
+     * @param nodes  Nodes in matrix order
+     * @param dist   Edge weights, stride x stride, infinity where there is no
+     *               edge. Becomes the distance matrix
+     * @param stride stride(nodes.size())
+     * @param pool   Pool to split the work across
+     */
+    AllPairs(List<Node<T>> nodes, double[] dist, int stride, ForkJoinPool pool) {
+        this.nodes = new ArrayList<>(nodes);
+        n = nodes.size();
+        lookIndex = new HashMap<>(n * 2);
+        for (int i = 0; i < n; i++) {
+            lookIndex.put(this.nodes.get(i), i);
+        }
+        this.stride = stride;
+        this.dist = dist;
+        next = new int[stride * stride];
+        for (int i = 0; i < stride; i++) {
+            int row = i * stride;
+            for (int j = 0; j < stride; j++) {
+                next[row + j] = (dist[row + j] < Double.POSITIVE_INFINITY) ? j : -1;
+            }
+            // a negative self loop stays, it's a negative cycle
+            if (dist[row + i] > 0) {
+                dist[row + i] = 0;
+                next[row + i] = i;
+            }
+        }
+
+        int blocks = stride / BLOCK;
+        for (int kb = 0; kb < blocks; kb++) {
+            int k = kb;
+            tile(k, k, k);
+            // row k and column k, 2 * (blocks - 1) tiles
+            Parallel.forRange(pool, 0, 2 * blocks, 1, (from, to) -> {
+                for (int t = from; t < to; t++) {
+                    int other = t >> 1;
+                    if (other == k)
+                        continue;
+                    if ((t & 1) == 0)
+                        tile(k, other, k);
+                    else
+                        tile(other, k, k);
+                }
+            });
+            // everything else, a whole row of tiles per task
+            Parallel.forRange(pool, 0, blocks, 1, (from, to) -> {
+                for (int ib = from; ib < to; ib++) {
+                    if (ib == k)
+                        continue;
+                    for (int jb = 0; jb < blocks; jb++) {
+                        if (jb != k)
+                            tile(ib, jb, k);
+                    }
+                }
+            });
+        }
+
+        boolean negative = false;
+        for (int i = 0; i < n; i++) {
+            if (dist[i * stride + i] < 0)
+                negative = true;
+        }
+        negativeCycle = negative;
+    }
+
+    /**
+     * @param n Number of nodes
+     * @return Returns the row length AllPairs wants for n nodes
+     */
+    static int stride(int n) {
+        return Math.max(BLOCK, (n + BLOCK - 1) / BLOCK * BLOCK);
+    }
+
+    /**
+     * @return Returns the number of nodes
+     */
+    public int getSize() {
+        return n;
+    }
+
+    /**
+     * @param node Node to be looked up
+     * @return Returns the node's index, -1 if it isn't here
+     */
+    public int indexOf(Node<T> node) {
+        Integer index = lookIndex.get(node);
+        return (index == null) ? -1 : index;
+    }
+
+    /**
+     * @param index Index of the node
+     * @return Returns the node
+     */
+    public Node<T> getNode(int index) {
+        return nodes.get(index);
+    }
+
+    /**
+     * @param from Index of the start node
+     * @param to   Index of the end node
+     * @return Returns the shortest distance, infinity if to can't be reached
+     */
+    public double distance(int from, int to) {
+        return dist[from * stride + to];
+    }
+
+    /**
+     * @param from Start node
+     * @param to   End node
+     * @return Returns the shortest distance, infinity if to can't be reached or
+     *         either node isn't here
+     */
+    public double distance(Node<T> from, Node<T> to) {
+        int i = indexOf(from);
+        int j = indexOf(to);
+        if (i < 0 || j < 0)
+            return Double.POSITIVE_INFINITY;
+        return distance(i, j);
+    }
+
+    /**
+     * @param from Index of the start node
+     * @param to   Index of the end node
+     * @return Returns the node to go to first on a shortest path, -1 if to can't
+     *         be reached
+     */
+    public int nextHop(int from, int to) {
+        return next[from * stride + to];
+    }
+
+    /**
+     * Writes a shortest path into an array without allocating
+     *
+     * @param from Index of the start node
+     * @param to   Index of the end node
+     * @param path Array to write the indices into, getSize() is always enough
+     *             room
+     * @return Returns the number of nodes in the path, 0 if to can't be reached,
+     *         path is too small or the path runs into a negative cycle
+     */
+    public int pathTo(int from, int to, int[] path) {
+        if (next[from * stride + to] < 0)
+            return 0;
+        int length = 0;
+        for (int v = from; length < path.length; v = next[v * stride + to]) {
+            path[length++] = v;
+            if (v == to)
+                return length;
+        }
+        return 0;
+    }
+
+    /**
+     * Gets a shortest path. Allocates, use pathTo() in hot loops
+     *
+     * @param from Start node
+     * @param to   End node
+     * @return Returns the nodes of the path, empty if there isn't one or either
+     *         node isn't here
+     */
+    public List<Node<T>> getPath(Node<T> from, Node<T> to) {
+        int i = indexOf(from);
+        int j = indexOf(to);
+        if (i < 0 || j < 0)
+            return Collections.emptyList();
+        int[] path = new int[n];
+        int length = pathTo(i, j, path);
+        ArrayList<Node<T>> res = new ArrayList<>(length);
+        for (int k = 0; k < length; k++) {
+            res.add(nodes.get(path[k]));
+        }
+        return res;
+    }
+
+    /**
+     * @return Returns true if some node can reach itself with a negative
+     *         distance, then the distances through it mean nothing
+     */
+    public boolean hasNegativeCycle() {
+        return negativeCycle;
+    }
+
+    /**
+     * Relaxes tile (ib, jb) through the nodes of block kb
+     */
+    private void tile(int ib, int jb, int kb) {
+        int i0 = ib * BLOCK;
+        int j0 = jb * BLOCK;
+        int k0 = kb * BLOCK;
+        for (int k = k0; k < k0 + BLOCK; k++) {
+            int kRow = k * stride;
+            for (int i = i0; i < i0 + BLOCK; i++) {
+                int iRow = i * stride;
+                double dik = dist[iRow + k];
+                if (dik == Double.POSITIVE_INFINITY)
+                    continue;
+                int hop = next[iRow + k];
+                for (int j = j0; j < j0 + BLOCK; j++) {
+                    double through = dik + dist[kRow + j];
+                    if (through < dist[iRow + j]) {
+                        dist[iRow + j] = through;
+                        next[iRow + j] = hop;
+                    }
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,437 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Parallel direction optimizing breadth first search over a CSRGraph (or any
+ * Adjacency, such as a MappedGraph)
+ *
+ * While the frontier is small the search goes top down: the frontier is a
+ * queue of node indices and every frontier node claims its unvisited
+ * neighbors with a CAS on the visited bitset, appending them to the next
+ * queue. Once the frontier's edges outnumber the edges left to check from
+ * unvisited nodes (mf > mu / ALPHA) it goes bottom up instead: the frontier
+ * becomes a bitset and every unvisited node looks through its incoming edges
+ * for any frontier node and stops at the first one, which skips most edges
+ * when the frontier is huge. It goes back to top down (and to a queue) when
+ * the frontier shrinks under n / BETA nodes. So a level costs about as much
+ * as its frontier top down, the whole bitset only bottom up. Top down levels
+ * are split across a ForkJoinPool by queue entries, bottom up ones by bitset
+ * words
+ *
+ * Like Dijkstra, one BFS is meant to be reused, only what a run visited is
+ * reset before the next one. Nodes are the snapshot's dense indices
+ *
+ * Member Methods:
+ * - run(int source)
+ * - run(int source, int target)
+ * - depth(int index)
+ * - parent(int index)
+ * - isReached(int index)
+ * - getDepths()
+ * - getReached()
+ * - getLevels()
+ * - getBottomUpLevels()
+ * - pathTo(int target, int[] path)
+ *
+ * @version 1.0
+ */
+public class BFS<T> {
+
+    // switching thresholds from Beamer et al., "Direction-Optimizing BFS"
+    private static final int ALPHA = 14;
+    private static final int BETA = 24;
+    // bitset words per task, 64 nodes each
+    private static final int MIN_GRAIN = 32;
+    // queue entries per task
+    private static final int MIN_NODES = 256;
+    // nodes a task gathers before moving them to a shared queue
+    private static final int BUFFER = 256;
+
+    private final Adjacency graph;
+    private final Adjacency reverse;
+    private final ForkJoinPool pool;
+    private final int n;
+    private final int words;
+
+    private final int[] depth;
+    private final int[] parent;
+    private final AtomicLongArray visited;
+    // bottom up frontiers. frontier is all zero while going top down, next
+    // holds leftovers that the next bottom up step overwrites
+    private AtomicLongArray frontier;
+    private AtomicLongArray next;
+    // top down frontiers
+    private int[] queue;
+    private int[] nextQueue;
+    private int queueSize;
+    private final AtomicInteger nextSize = new AtomicInteger();
+
+    private int source = -1;
+    private int reached;
+    private int levels;
+    private int bottomUpLevels;
+
+    /**
+     * Creates a search over a snapshot using the common pool. Builds the
+     * transposed snapshot for the bottom up steps
+     *
+     * @param graph Snapshot to search
+     */
+    public BFS(CSRGraph<T> graph) {
+        this(graph, graph.transpose(), ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a search over a snapshot
+     *
+     * @param graph   Snapshot to search
+     * @param reverse graph.transpose(), or graph itself if it's undirected
+     * @param pool    Pool to split levels across
+     */
+    public BFS(Adjacency graph, Adjacency reverse, ForkJoinPool pool) {
+        this.graph = graph;
+        this.reverse = reverse;
+        this.pool = pool;
+        n = graph.getSize();
+        words = (n + 63) >>> 6;
+        depth = new int[n];
+        parent = new int[n];
+        Arrays.fill(depth, -1);
+        Arrays.fill(parent, -1);
+        visited = new AtomicLongArray(words);
+        frontier = new AtomicLongArray(words);
+        next = new AtomicLongArray(words);
+        queue = new int[n];
+        nextQueue = new int[n];
+    }
+
+    /**
+     * Finds the hop distance from source to every node it can reach
+     *
+     * @param source Index of the node to start from
+     * @return Returns false if source isn't an index in the snapshot
+     */
+    public boolean run(int source) {
+        return run(source, -1);
+    }
+
+    /**
+     * Finds hop distances from source, stopping after the level that reaches
+     * target
+     *
+     * @param source Index of the node to start from
+     * @param target Index of the node to stop at, -1 to search everything
+     * @return Returns false if source isn't an index in the snapshot or target
+     *         is neither an index nor -1, true otherwise (even if target wasn't
+     *         reached)
+     */
+    public boolean run(int source, int target) {
+        if (source < 0 || source >= n || target < -1 || target >= n)
+            return false;
+        reset();
+        this.source = source;
+
+        depth[source] = 0;
+        visited.set(source >>> 6, 1L << source);
+        queue[0] = source;
+        queueSize = 1;
+        long nf = 1;
+        long mf = graph.degree(source);
+        // edges bottom up would still have to look through
+        long mu = reverse.getEdgeCount() - reverse.degree(source);
+        reached = 1;
+
+        boolean bottomUp = false;
+        int level = 0;
+        while (nf > 0 && !isReached(target)) {
+            if (!bottomUp && mf > mu / ALPHA) {
+                bottomUp = true;
+                Parallel.forRange(pool, 0, queueSize, MIN_NODES, this::toBitset);
+            } else if (bottomUp && nf < n / BETA) {
+                bottomUp = false;
+                nextSize.set(0);
+                Parallel.forRange(pool, 0, words, MIN_GRAIN, this::toQueue);
+                swapQueues();
+            }
+
+            int d = level + 1;
+            if (bottomUp) {
+                bottomUpLevels++;
+                // new nodes in the low half, their in degrees in the high half.
+                // Both fit in 32 bits since node and edge counts are ints
+                long found = Parallel.sum(pool, 0, words, MIN_GRAIN, (from, to) -> bottomUpStep(from, to, d));
+                AtomicLongArray temp = frontier;
+                frontier = next;
+                next = temp;
+                nf = found & 0xffffffffL;
+                mu -= found >>> 32;
+            } else {
+                // out degrees of the new nodes in the low half, in degrees in
+                // the high half
+                nextSize.set(0);
+                long degrees = Parallel.sum(pool, 0, queueSize, MIN_NODES, (from, to) -> topDownStep(from, to, d));
+                swapQueues();
+                nf = queueSize;
+                mf = degrees & 0xffffffffL;
+                mu -= degrees >>> 32;
+            }
+            reached += nf;
+            level++;
+        }
+        levels = level;
+        return true;
+    }
+
+    /**
+     * @param index Index of the node
+     * @return Returns the number of edges from the source, -1 if it wasn't
+     *         reached
+     */
+    public int depth(int index) {
+        return depth[index];
+    }
+
+    /**
+     * @param index Index of the node
+     * @return Returns the node it was reached from, -1 for the source and nodes
+     *         that weren't reached
+     */
+    public int parent(int index) {
+        return parent[index];
+    }
+
+    /**
+     * @param index Index of the node
+     * @return Returns true if the last run reached the node
+     */
+    public boolean isReached(int index) {
+        return index >= 0 && index < n && depth[index] >= 0;
+    }
+
+    /**
+     * The array itself, not a copy. It's overwritten by the next run so copy it
+     * if you need to keep it
+     *
+     * @return Returns the depths by node index, -1 for nodes that weren't reached
+     */
+    public int[] getDepths() {
+        return depth;
+    }
+
+    /**
+     * @return Returns the number of nodes the last run reached
+     */
+    public int getReached() {
+        return reached;
+    }
+
+    /**
+     * @return Returns the number of levels the last run went through
+     */
+    public int getLevels() {
+        return levels;
+    }
+
+    /**
+     * @return Returns the number of levels of the last run that went bottom up
+     */
+    public int getBottomUpLevels() {
+        return bottomUpLevels;
+    }
+
+    /**
+     * Writes a shortest path (fewest edges) from the source to target into an
+     * array without allocating
+     *
+     * @param target Index of the last node of the path
+     * @param path   Array to write the indices into, source first. Needs at
+     *               least depth(target) + 1 room
+     * @return Returns the number of nodes in the path, 0 if target wasn't
+     *         reached or path is too small
+     */
+    public int pathTo(int target, int[] path) {
+        if (target < 0 || target >= n || depth[target] < 0 || depth[target] >= path.length)
+            return 0;
+        int length = depth[target] + 1;
+        for (int v = target, i = length - 1; v >= 0; v = parent[v], i--) {
+            path[i] = v;
+        }
+        return length;
+    }
+
+    /**
+     * Every frontier node in queue[from, to) claims its unvisited neighbors
+     * and adds them to the next queue
+     *
+     * @return Returns the out degrees of the claimed nodes in the low half, their
+     *         in degrees in the high half
+     */
+    private long topDownStep(int from, int to, int d) {
+        int[] buffer = new int[BUFFER];
+        int size = 0;
+        long out = 0;
+        long in = 0;
+        for (int i = from; i < to; i++) {
+            int u = queue[i];
+            for (int e = graph.edgeStart(u), end = graph.edgeEnd(u); e < end; e++) {
+                int v = graph.edgeTarget(e);
+                if (claim(visited, v)) {
+                    depth[v] = d;
+                    parent[v] = u;
+                    out += graph.degree(v);
+                    in += reverse.degree(v);
+                    if (size == BUFFER)
+                        size = flush(buffer, size);
+                    buffer[size++] = v;
+                }
+            }
+        }
+        flush(buffer, size);
+        return (in << 32) | out;
+    }
+
+    /**
+     * Every unvisited node in words [from, to) looks for a parent in the
+     * frontier. Only this task writes these words, so no CAS is needed. Every
+     * word of next gets written, which clears what was left in it
+     *
+     * @return Returns the number of nodes found in the low half, their in
+     *         degrees in the high half
+     */
+    private long bottomUpStep(int from, int to, int d) {
+        long count = 0;
+        long in = 0;
+        for (int w = from; w < to; w++) {
+            long seen = visited.getPlain(w);
+            long unvisited = ~seen & validBits(w);
+            long found = 0;
+            while (unvisited != 0) {
+                int v = (w << 6) + Long.numberOfTrailingZeros(unvisited);
+                unvisited &= unvisited - 1;
+                for (int e = reverse.edgeStart(v), end = reverse.edgeEnd(v); e < end; e++) {
+                    int u = reverse.edgeTarget(e);
+                    if ((frontier.getPlain(u >>> 6) & (1L << u)) != 0) {
+                        depth[v] = d;
+                        parent[v] = u;
+                        found |= 1L << v;
+                        in += reverse.degree(v);
+                        break;
+                    }
+                }
+            }
+            next.setPlain(w, found);
+            if (found != 0) {
+                visited.setPlain(w, seen | found);
+                count += Long.bitCount(found);
+            }
+        }
+        return (in << 32) | count;
+    }
+
+    /**
+     * Sets the frontier bits of queue[from, to)
+     */
+    private void toBitset(int from, int to) {
+        for (int i = from; i < to; i++) {
+            claim(frontier, queue[i]);
+        }
+    }
+
+    /**
+     * Moves the frontier bits of words [from, to) to the next queue, leaving
+     * the words zero
+     */
+    private void toQueue(int from, int to) {
+        int[] buffer = new int[BUFFER];
+        int size = 0;
+        for (int w = from; w < to; w++) {
+            long bits = frontier.getPlain(w);
+            if (bits == 0)
+                continue;
+            frontier.setPlain(w, 0);
+            while (bits != 0) {
+                if (size == BUFFER)
+                    size = flush(buffer, size);
+                buffer[size++] = (w << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+            }
+        }
+        flush(buffer, size);
+    }
+
+    /**
+     * Copies a task's nodes to the end of the next queue
+     *
+     * @return Returns 0, the buffer's new size
+     */
+    private int flush(int[] buffer, int size) {
+        if (size > 0)
+            System.arraycopy(buffer, 0, nextQueue, nextSize.getAndAdd(size), size);
+        return 0;
+    }
+
+    private void swapQueues() {
+        int[] temp = queue;
+        queue = nextQueue;
+        nextQueue = temp;
+        queueSize = nextSize.get();
+    }
+
+    /**
+     * Puts back every entry the last run changed
+     */
+    private void reset() {
+        if (source < 0)
+            return;
+        Parallel.forRange(pool, 0, words, MIN_GRAIN, (from, to) -> {
+            for (int w = from; w < to; w++) {
+                long bits = visited.getPlain(w);
+                while (bits != 0) {
+                    int v = (w << 6) + Long.numberOfTrailingZeros(bits);
+                    bits &= bits - 1;
+                    depth[v] = -1;
+                    parent[v] = -1;
+                }
+            }
+            clear(visited, from, to);
+            clear(frontier, from, to);
+        });
+        reached = 0;
+        levels = 0;
+        bottomUpLevels = 0;
+    }
+
+    private static void clear(AtomicLongArray bitset, int from, int to) {
+        for (int w = from; w < to; w++) {
+            bitset.setPlain(w, 0);
+        }
+    }
+
+    /**
+     * Sets a bit unless it's already set
+     *
+     * @return Returns true if this call set it
+     */
+    private static boolean claim(AtomicLongArray bitset, int v) {
+        int w = v >>> 6;
+        long bit = 1L << v;
+        long old = bitset.get(w);
+        while ((old & bit) == 0) {
+            if (bitset.weakCompareAndSetVolatile(w, old, old | bit))
+                return true;
+            old = bitset.get(w);
+        }
+        return false;
+    }
+
+    /**
+     * @return Returns the bits of word w that are real nodes
+     */
+    private long validBits(int w) {
+        int left = n - (w << 6);
+        return (left >= 64) ? -1L : (1L << left) - 1;
+    }
+
+}
@@ -0,0 +1,311 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Frozen (read only) compressed sparse row snapshot of an adjacency list
+ *
+ * Nodes are mapped to dense indices 0..n-1. The edges leaving node i are
+ * stored in targets[offsets[i]] .. targets[offsets[i + 1] - 1] with their
+ * weights and the ids the graph gave them (see Graph.getEdge()) at the same
+ * positions in weights and edgeIds, sorted by target index. Nothing in
+ * here changes after construction, so a snapshot can be shared between threads
+ * and queried as much as you want without touching any HashMap or Double.
+ * The primitive accessors are the Adjacency interface, see MappedGraph for
+ * the same thing on disk
+ *
+ * Member Methods:
+ * - getSize()
+ * - getEdgeCount()
+ * - indexOf(Node<T> node)
+ * - getNode(int index)
+ * - getAllNodes()
+ * - degree(int index)
+ * - edgeStart(int index)
+ * - edgeEnd(int index)
+ * - edgeTarget(int edge)
+ * - edgeWeight(int edge)
+ * - edgeId(int edge)
+ * - edgeExists(int indexOne, int indexTwo)
+ * - edgeExists(Node<T> nodeOne, Node<T> nodeTwo)
+ * - getNeighbors(Node<T> node)
+ * - transpose()
+ * - toString()
+ *
+ * @version 1.0
+ */
+public class CSRGraph<T> implements Adjacency {
+
+    private final ArrayList<Node<T>> lookNode;
+    private final HashMap<Node<T>, Integer> lookIndex;
+
+    private final int[] offsets;
+    private final int[] targets;
+    private final double[] weights;
+    private final int[] edgeIds;
+
+    /**
+     * Freezes the current state of an adjacency list. Later changes to the list
+     * are not reflected in the snapshot
+     *
+     * @param al Adjacency list to be frozen
+     */
+    CSRGraph(AdjList<T> al) {
+        lookNode = new ArrayList<>(al.getAllNodes());
+        int n = lookNode.size();
+        lookIndex = new HashMap<>(n * 2);
+        for (int i = 0; i < n; i++) {
+            lookIndex.put(lookNode.get(i), i);
+        }
+
+        offsets = new int[n + 1];
+        for (int i = 0; i < n; i++) {
+            offsets[i + 1] = offsets[i] + al.getEdges(lookNode.get(i)).size();
+        }
+
+        targets = new int[offsets[n]];
+        weights = new double[offsets[n]];
+        edgeIds = new int[offsets[n]];
+        // one scratch buffer big enough for the largest row so sorting doesn't
+        // allocate per node
+        long[] keys = new long[0];
+        double[] scratch = new double[0];
+        for (int i = 0; i < n; i++) {
+            List<Pair<Node<T>, Double>> edges = al.getEdges(lookNode.get(i));
+            int degree = edges.size();
+            if (keys.length < degree) {
+                keys = new long[degree];
+                scratch = new double[degree];
+            }
+            // sort by target index, low 32 bits remember where the weight came from
+            for (int k = 0; k < degree; k++) {
+                keys[k] = ((long) lookIndex.get(edges.get(k).one) << 32) | k;
+                scratch[k] = edges.get(k).two;
+            }
+            Arrays.sort(keys, 0, degree);
+            int base = offsets[i];
+            for (int k = 0; k < degree; k++) {
+                targets[base + k] = (int) (keys[k] >>> 32);
+                weights[base + k] = scratch[(int) keys[k]];
+                edgeIds[base + k] = ((Edge<T>) edges.get((int) keys[k])).getId();
+            }
+        }
+    }
+
+    /**
+     * Wraps CSR arrays built somewhere else. Edges get no ids
+     *
+     * @param nodes   Nodes in index order
+     * @param offsets Row starts, nodes.size() + 1 of them
+     * @param targets Target index of every edge, each row sorted
+     * @param weights Weight of every edge
+     */
+    CSRGraph(List<Node<T>> nodes, int[] offsets, int[] targets, double[] weights) {
+        lookNode = new ArrayList<>(nodes);
+        int n = lookNode.size();
+        lookIndex = new HashMap<>(n * 2);
+        for (int i = 0; i < n; i++) {
+            lookIndex.put(lookNode.get(i), i);
+        }
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+        edgeIds = new int[targets.length];
+        Arrays.fill(edgeIds, -1);
+    }
+
+    /**
+     * Wraps arrays that are already in CSR form, shares the node lookups
+     */
+    private CSRGraph(ArrayList<Node<T>> lookNode, HashMap<Node<T>, Integer> lookIndex, int[] offsets,
+            int[] targets, double[] weights, int[] edgeIds) {
+        this.lookNode = lookNode;
+        this.lookIndex = lookIndex;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+        this.edgeIds = edgeIds;
+    }
+
+    /**
+     * @return Returns the number of nodes in the snapshot
+     */
+    public int getSize() {
+        return lookNode.size();
+    }
+
+    /**
+     * @return Returns the number of directed edges in the snapshot, undirected
+     *         edges count twice
+     */
+    public int getEdgeCount() {
+        return targets.length;
+    }
+
+    /**
+     * @param node Node to be looked up
+     * @return Returns the dense index of the node, -1 if the node isn't in the
+     *         snapshot
+     */
+    public int indexOf(Node<T> node) {
+        Integer index = lookIndex.get(node);
+        return (index == null) ? -1 : index;
+    }
+
+    /**
+     * @param index Dense index of the node
+     * @return Returns the node at the given index
+     */
+    public Node<T> getNode(int index) {
+        return lookNode.get(index);
+    }
+
+    /**
+     * @return Returns an unmodifiable list of all nodes in index order
+     */
+    public List<Node<T>> getAllNodes() {
+        return Collections.unmodifiableList(lookNode);
+    }
+
+    /**
+     * @param index Dense index of the node
+     * @return Returns the number of edges leaving the node
+     */
+    public int degree(int index) {
+        return offsets[index + 1] - offsets[index];
+    }
+
+    /**
+     * @param index Dense index of the node
+     * @return Returns the position of the first edge leaving the node
+     */
+    public int edgeStart(int index) {
+        return offsets[index];
+    }
+
+    /**
+     * @param index Dense index of the node
+     * @return Returns the position one past the last edge leaving the node
+     */
+    public int edgeEnd(int index) {
+        return offsets[index + 1];
+    }
+
+    /**
+     * @param edge Position of the edge
+     * @return Returns the dense index of the TARGET node of the edge
+     */
+    public int edgeTarget(int edge) {
+        return targets[edge];
+    }
+
+    /**
+     * @param edge Position of the edge
+     * @return Returns the weight of the edge
+     */
+    public double edgeWeight(int edge) {
+        return weights[edge];
+    }
+
+    /**
+     * @param edge Position of the edge
+     * @return Returns the id the graph gave the edge, the same for both
+     *         directions of an undirected edge, -1 if it has none
+     */
+    public int edgeId(int edge) {
+        return edgeIds[edge];
+    }
+
+    /**
+     * Detects if a directed edge exists between two nodes. Rows are sorted so
+     * this is a binary search
+     *
+     * @param indexOne Dense index of the SOURCE node
+     * @param indexTwo Dense index of the TARGET node
+     * @return Returns true if an edge exists, false otherwise
+     */
+    public boolean edgeExists(int indexOne, int indexTwo) {
+        return Arrays.binarySearch(targets, offsets[indexOne], offsets[indexOne + 1], indexTwo) >= 0;
+    }
+
+    /**
+     * Detects if a directed edge exists between two nodes
+     *
+     * @param nodeOne The SOURCE node
+     * @param nodeTwo The TARGET node
+     * @return Returns true if an edge exists, false if either node doesn't exist
+     *         or the edge doesn't exist
+     */
+    public boolean edgeExists(Node<T> nodeOne, Node<T> nodeTwo) {
+        int indexOne = indexOf(nodeOne);
+        int indexTwo = indexOf(nodeTwo);
+        if (indexOne < 0 || indexTwo < 0)
+            return false;
+        return edgeExists(indexOne, indexTwo);
+    }
+
+    /**
+     * @param node Gets all nodes this node has an edge pointing to
+     * @return Returns a list of nodes connected to the given node, or null if the
+     *         node does not exist
+     */
+    public List<Node<T>> getNeighbors(Node<T> node) {
+        int index = indexOf(node);
+        if (index < 0)
+            return null;
+        ArrayList<Node<T>> neighbors = new ArrayList<>(degree(index));
+        for (int e = offsets[index]; e < offsets[index + 1]; e++) {
+            neighbors.add(lookNode.get(targets[e]));
+        }
+        return neighbors;
+    }
+
+    /**
+     * Builds the snapshot with every edge reversed, so the edges of node i are
+     * the ones coming into it here. Same node indices, rows are sorted too.
+     * Undirected snapshots are their own transpose. Builds a new one every
+     * call, keep it around if you need it more than once
+     *
+     * @return Returns the transposed snapshot
+     */
+    public CSRGraph<T> transpose() {
+        int n = lookNode.size();
+        int[] tOffsets = new int[n + 1];
+        for (int e = 0; e < targets.length; e++) {
+            tOffsets[targets[e] + 1]++;
+        }
+        for (int i = 0; i < n; i++) {
+            tOffsets[i + 1] += tOffsets[i];
+        }
+
+        int[] tTargets = new int[targets.length];
+        double[] tWeights = new double[targets.length];
+        int[] tEdgeIds = new int[targets.length];
+        int[] next = Arrays.copyOf(tOffsets, n);
+        // walking sources in order fills every row already sorted
+        for (int i = 0; i < n; i++) {
+            for (int e = offsets[i]; e < offsets[i + 1]; e++) {
+                int k = next[targets[e]]++;
+                tTargets[k] = i;
+                tWeights[k] = weights[e];
+                tEdgeIds[k] = edgeIds[e];
+            }
+        }
+        return new CSRGraph<>(lookNode, lookIndex, tOffsets, tTargets, tWeights, tEdgeIds);
+    }
+
+    public String toString() {
+        StringBuilder res = new StringBuilder();
+        for (int i = 0; i < lookNode.size(); i++) {
+            res.append(lookNode.get(i).getVal()).append(": ");
+            for (int e = offsets[i]; e < offsets[i + 1]; e++) {
+                res.append("(").append(lookNode.get(targets[e]).getVal()).append(", ").append(weights[e]).append(") ");
+            }
+            res.append("\n");
+        }
+        return res.toString();
+    }
+
+}
@@ -0,0 +1,289 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Node centrality scores over a CSRGraph
+ *
+ * PageRank and eigenvector centrality are power iterations, each one a sparse
+ * matrix-vector product. They pull: node v adds up what its incoming edges
+ * bring in (read from the transposed snapshot) and writes only its own entry,
+ * so the nodes can be split across a ForkJoinPool without any locking or
+ * atomics. Two double[] vectors are swapped every iteration. An iteration
+ * stops the run once the L1 change between the two vectors is under the
+ * tolerance, or the run stops after maxIterations
+ *
+ * Results are indexed by the snapshot's dense node indices. Parallel edges
+ * count once each, weights are ignored. After every run getIterations(),
+ * getIterationTimes(), getResidual() and hasConverged() describe how it went
+ *
+ * Member Methods:
+ * - pageRank()
+ * - pageRank(double damping, double tolerance, int maxIterations)
+ * - eigenvector()
+ * - eigenvector(double tolerance, int maxIterations)
+ * - inDegree()
+ * - outDegree()
+ * - getIterations()
+ * - getIterationTimes()
+ * - getResidual()
+ * - hasConverged()
+ *
+ * @version 1.0
+ */
+public class Centrality<T> {
+
+    public static final double DEFAULT_DAMPING = 0.85;
+    public static final double DEFAULT_TOLERANCE = 1e-9;
+    public static final int DEFAULT_MAX_ITERATIONS = 100;
+
+    // nodes per task
+    private static final int MIN_GRAIN = 2048;
+
+    private final CSRGraph<T> graph;
+    private CSRGraph<T> reverse;
+    private final ForkJoinPool pool;
+    private final int n;
+
+    // the two vectors that get swapped, and 1 / out degree per node
+    private double[] cur;
+    private double[] next;
+    private double[] share;
+
+    private int iterations;
+    private long[] iterationTimes = new long[0];
+    private double residual;
+    private boolean converged;
+
+    /**
+     * Creates the algorithms for a snapshot using the common pool
+     *
+     * @param graph Snapshot to rank
+     */
+    public Centrality(CSRGraph<T> graph) {
+        this(graph, null, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates the algorithms for a snapshot
+     *
+     * @param graph   Snapshot to rank
+     * @param reverse graph.transpose(), graph itself if it's undirected, or null
+     *                to build it when it's first needed
+     * @param pool    Pool to split iterations across
+     */
+    public Centrality(CSRGraph<T> graph, CSRGraph<T> reverse, ForkJoinPool pool) {
+        this.graph = graph;
+        this.reverse = reverse;
+        this.pool = pool;
+        n = graph.getSize();
+    }
+
+    /**
+     * PageRank with the usual damping, tolerance and iteration limit
+     *
+     * @return Returns the rank of every node, they add up to 1
+     */
+    public double[] pageRank() {
+        return pageRank(DEFAULT_DAMPING, DEFAULT_TOLERANCE, DEFAULT_MAX_ITERATIONS);
+    }
+
+    /**
+     * PageRank: a random walk that follows an edge with probability damping
+     * and jumps to a random node otherwise. Nodes without outgoing edges
+     * spread their rank over every node
+     *
+     * @param damping       Probability of following an edge, usually 0.85
+     * @param tolerance     Stops once the ranks change less than this (L1)
+     * @param maxIterations Stops after this many iterations either way
+     * @return Returns the rank of every node, they add up to 1. The array is
+     *         reused by the next run, copy it to keep it
+     */
+    public double[] pageRank(double damping, double tolerance, int maxIterations) {
+        if (!start())
+            return new double[0];
+        for (int v = 0; v < n; v++) {
+            int degree = graph.degree(v);
+            share[v] = (degree == 0) ? 0 : 1.0 / degree;
+        }
+        Arrays.fill(cur, 1.0 / n);
+
+        while (iterations < maxIterations && !converged) {
+            long time = System.nanoTime();
+            // what every node sends down each of its edges, rank of dead ends
+            // is spread evenly instead
+            double[] rank = cur;
+            double dangling = Parallel.sumDouble(pool, 0, n, MIN_GRAIN, (from, to) -> {
+                double lost = 0;
+                for (int u = from; u < to; u++) {
+                    if (share[u] == 0)
+                        lost += rank[u];
+                }
+                return lost;
+            });
+            double base = (1 - damping) / n + damping * dangling / n;
+
+            double[] out = next;
+            residual = Parallel.sumDouble(pool, 0, n, MIN_GRAIN, (from, to) -> {
+                double change = 0;
+                for (int v = from; v < to; v++) {
+                    double sum = 0;
+                    for (int e = reverse.edgeStart(v), end = reverse.edgeEnd(v); e < end; e++) {
+                        int u = reverse.edgeTarget(e);
+                        sum += rank[u] * share[u];
+                    }
+                    out[v] = base + damping * sum;
+                    change += Math.abs(out[v] - rank[v]);
+                }
+                return change;
+            });
+            finishIteration(time, tolerance);
+        }
+        return cur;
+    }
+
+    /**
+     * Eigenvector centrality with the usual tolerance and iteration limit
+     *
+     * @return Returns the centrality of every node, scaled to length 1
+     */
+    public double[] eigenvector() {
+        return eigenvector(DEFAULT_TOLERANCE, DEFAULT_MAX_ITERATIONS);
+    }
+
+    /**
+     * Eigenvector centrality: a node is as central as the sum of the nodes
+     * pointing at it. Iterates x + A^T x rather than A^T x, same eigenvector
+     * but it also converges on graphs that are bipartite
+     *
+     * @param tolerance     Stops once the scores change less than this (L1)
+     * @param maxIterations Stops after this many iterations either way
+     * @return Returns the centrality of every node, scaled to length 1. The
+     *         array is reused by the next run, copy it to keep it
+     */
+    public double[] eigenvector(double tolerance, int maxIterations) {
+        if (!start())
+            return new double[0];
+        Arrays.fill(cur, 1.0 / n);
+
+        while (iterations < maxIterations && !converged) {
+            long time = System.nanoTime();
+            double[] x = cur;
+            double[] out = next;
+            double squares = Parallel.sumDouble(pool, 0, n, MIN_GRAIN, (from, to) -> {
+                double sum = 0;
+                for (int v = from; v < to; v++) {
+                    double s = x[v];
+                    for (int e = reverse.edgeStart(v), end = reverse.edgeEnd(v); e < end; e++) {
+                        s += x[reverse.edgeTarget(e)];
+                    }
+                    out[v] = s;
+                    sum += s * s;
+                }
+                return sum;
+            });
+            double scale = (squares == 0) ? 0 : 1 / Math.sqrt(squares);
+            residual = Parallel.sumDouble(pool, 0, n, MIN_GRAIN, (from, to) -> {
+                double change = 0;
+                for (int v = from; v < to; v++) {
+                    out[v] *= scale;
+                    change += Math.abs(out[v] - x[v]);
+                }
+                return change;
+            });
+            finishIteration(time, tolerance);
+        }
+        return cur;
+    }
+
+    /**
+     * @return Returns the number of edges coming into each node divided by n - 1
+     */
+    public double[] inDegree() {
+        int[] counts = new int[n];
+        for (int e = 0; e < graph.getEdgeCount(); e++) {
+            counts[graph.edgeTarget(e)]++;
+        }
+        double[] res = new double[n];
+        for (int v = 0; v < n; v++) {
+            res[v] = (n > 1) ? counts[v] / (n - 1.0) : 0;
+        }
+        return res;
+    }
+
+    /**
+     * @return Returns the number of edges leaving each node divided by n - 1
+     */
+    public double[] outDegree() {
+        double[] res = new double[n];
+        for (int v = 0; v < n; v++) {
+            res[v] = (n > 1) ? graph.degree(v) / (n - 1.0) : 0;
+        }
+        return res;
+    }
+
+    /**
+     * @return Returns the number of iterations the last run did
+     */
+    public int getIterations() {
+        return iterations;
+    }
+
+    /**
+     * @return Returns how long each iteration of the last run took, in
+     *         nanoseconds
+     */
+    public long[] getIterationTimes() {
+        return Arrays.copyOf(iterationTimes, iterations);
+    }
+
+    /**
+     * @return Returns the L1 change of the last iteration of the last run
+     */
+    public double getResidual() {
+        return residual;
+    }
+
+    /**
+     * @return Returns true if the last run got under its tolerance before
+     *         running out of iterations
+     */
+    public boolean hasConverged() {
+        return converged;
+    }
+
+    /**
+     * Allocates what a run needs the first time and resets the run stats
+     *
+     * @return Returns false if there is nothing to rank
+     */
+    private boolean start() {
+        iterations = 0;
+        residual = 0;
+        converged = false;
+        if (n == 0)
+            return false;
+        if (reverse == null)
+            reverse = graph.transpose();
+        if (cur == null) {
+            cur = new double[n];
+            next = new double[n];
+            share = new double[n];
+        }
+        return true;
+    }
+
+    /**
+     * Swaps the vectors and records the iteration
+     */
+    private void finishIteration(long start, double tolerance) {
+        double[] temp = cur;
+        cur = next;
+        next = temp;
+        // grown as needed, maxIterations can be far more than a run takes
+        if (iterations == iterationTimes.length)
+            iterationTimes = Arrays.copyOf(iterationTimes, Math.max(16, 2 * iterations));
+        iterationTimes[iterations++] = System.nanoTime() - start;
+        converged = residual < tolerance;
+    }
+
+}
@@ -0,0 +1,178 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Connected components of a Graph, kept up to date as it changes
+ *
+ * Get one from Graph.getComponents(). Components are tracked by node id in a
+ * UnionFind, so connected() and getCount() are near O(1). Adding nodes and
+ * edges updates it on the spot. Removing either can split a component,
+ * which a union find can't undo, so it just marks the components dirty and
+ * they're recomputed (in parallel over node ids) on the next query. Edges
+ * of directed graphs count both ways, these are weakly connected components
+ *
+ * Member Methods:
+ * - connected(Node<T> nodeOne, Node<T> nodeTwo)
+ * - connected(int idOne, int idTwo)
+ * - componentOf(int id)
+ * - getComponent(Node<T> node)
+ * - getCount()
+ * - isDirty()
+ * - refresh()
+ *
+ * @version 1.0
+ */
+public class Components<T> {
+
+    // node ids per task when recomputing
+    private static final int MIN_GRAIN = 1024;
+
+    private final ArrayList<Node<T>> lookNode;
+    private final AdjList<T> al;
+    private final UnionFind uf;
+    private boolean dirty;
+
+    /**
+     * Creates the components of a graph, computed on the first query
+     *
+     * @param lookNode The graph's nodes by id
+     * @param al       The graph's adjacency list
+     */
+    Components(ArrayList<Node<T>> lookNode, AdjList<T> al) {
+        this.lookNode = lookNode;
+        this.al = al;
+        uf = new UnionFind(0);
+        dirty = true;
+    }
+
+    /**
+     * @param nodeOne A node
+     * @param nodeTwo Another node
+     * @return Returns true if there is a path between them ignoring direction,
+     *         false if not or either node isn't in the graph
+     */
+    public boolean connected(Node<T> nodeOne, Node<T> nodeTwo) {
+        return connected(nodeOne.getId(), nodeTwo.getId());
+    }
+
+    /**
+     * @param idOne Id of a node
+     * @param idTwo Id of another node
+     * @return Returns true if there is a path between them ignoring direction,
+     *         false if not or either id doesn't exist
+     */
+    public boolean connected(int idOne, int idTwo) {
+        if (!exists(idOne) || !exists(idTwo))
+            return false;
+        refreshIfDirty();
+        return uf.sameSet(idOne, idTwo);
+    }
+
+    /**
+     * @param id Id of a node
+     * @return Returns the id of a node that stands for its component (the same
+     *         one for every node in it until the graph changes), -1 if the id
+     *         doesn't exist
+     */
+    public int componentOf(int id) {
+        if (!exists(id))
+            return -1;
+        refreshIfDirty();
+        return uf.find(id);
+    }
+
+    /**
+     * Gets every node in the same component as a node. Walks all ids
+     *
+     * @param node Node to be checked
+     * @return Returns the nodes of its component, null if the node isn't in the
+     *         graph
+     */
+    public List<Node<T>> getComponent(Node<T> node) {
+        int root = componentOf(node.getId());
+        if (root < 0)
+            return null;
+        ArrayList<Node<T>> res = new ArrayList<>();
+        for (int id = 0; id < lookNode.size(); id++) {
+            if (lookNode.get(id) != null && uf.find(id) == root)
+                res.add(lookNode.get(id));
+        }
+        return res;
+    }
+
+    /**
+     * @return Returns the number of components
+     */
+    public int getCount() {
+        refreshIfDirty();
+        // ids without a node are singletons in the union find
+        return uf.getSets() - (lookNode.size() - al.getSize());
+    }
+
+    /**
+     * @return Returns true if the next query has to recompute everything
+     */
+    public boolean isDirty() {
+        return dirty;
+    }
+
+    /**
+     * Recomputes the components from scratch
+     */
+    public void refresh() {
+        uf.grow(lookNode.size());
+        uf.reset();
+        Parallel.forRange(ForkJoinPool.commonPool(), 0, lookNode.size(), MIN_GRAIN, (from, to) -> {
+            for (int id = from; id < to; id++) {
+                List<Pair<Node<T>, Double>> edges = al.getEdges(id);
+                if (lookNode.get(id) == null || edges == null)
+                    continue;
+                for (Pair<Node<T>, Double> edge : edges) {
+                    uf.union(id, edge.one.getId());
+                }
+            }
+        });
+        dirty = false;
+    }
+
+    /**
+     * Called by Graph after a node is added
+     *
+     * @param id Id of the new node
+     */
+    void nodeAdded(int id) {
+        // a reused id is still a singleton, nothing is unioned with ids that
+        // have no node
+        if (!dirty)
+            uf.grow(id + 1);
+    }
+
+    /**
+     * Called by Graph after an edge is added
+     *
+     * @param idOne Id of the SOURCE node
+     * @param idTwo Id of the TARGET node
+     */
+    void edgeAdded(int idOne, int idTwo) {
+        if (!dirty)
+            uf.union(idOne, idTwo);
+    }
+
+    /**
+     * Called by Graph after anything is removed
+     */
+    void invalidate() {
+        dirty = true;
+    }
+
+    private void refreshIfDirty() {
+        if (dirty)
+            refresh();
+    }
+
+    private boolean exists(int id) {
+        return id >= 0 && id < lookNode.size() && lookNode.get(id) != null;
+    }
+
+}
@@ -0,0 +1,361 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Adjacency list that many threads can add nodes and edges to at once
+ *
+ * Meant for ingesting: addNode() and addEdge() are lock free and can be
+ * called from any number of threads, there's no removal. Nodes get dense
+ * indices in the order they're added, and live in fixed size chunks that are
+ * created by CAS when first needed, so the node table grows without ever
+ * being copied. Each node's edges are a chain of blocks of plain int[] and
+ * double[]: a thread claims a slot in the newest block with getAndIncrement()
+ * and writes into it, and a full block is replaced by one twice the size
+ * (linking back to it) with a single CAS on the node's head. Threads only
+ * ever contend on the same node, so throughput grows with cores
+ *
+ * Once the producers are done (joined, or their executor shut down, so their
+ * writes are visible) the list is turned into a CSRGraph with freeze() or a
+ * regular Graph with toGraph(). Calling those while edges are still being
+ * added can miss edges that are half written
+ *
+ * Member Methods:
+ * - addNode(Node<T> node)
+ * - addEdge(int indexOne, int indexTwo)
+ * - addEdge(int indexOne, int indexTwo, double weight)
+ * - addEdge(Node<T> nodeOne, Node<T> nodeTwo, double weight)
+ * - indexOf(Node<T> node)
+ * - getNode(int index)
+ * - degree(int index)
+ * - getSize()
+ * - getEdgeCount()
+ * - freeze()
+ * - freeze(ForkJoinPool pool)
+ * - toGraph(int graphType, T baseValue, NamingFunction<T> namingFunction)
+ *
+ * @version 1.0
+ */
+public class ConcurrentAdjList<T> {
+
+    private static final int CHUNK_BITS = 14;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    // enough chunks for every int index
+    private static final int MAX_CHUNKS = 1 << (31 - CHUNK_BITS);
+    private static final int FIRST_BLOCK = 4;
+    private static final int MAX_BLOCK = 1 << 16;
+    // nodes per task when freezing
+    private static final int MIN_GRAIN = 4096;
+
+    /**
+     * Edges of one node, newest block first
+     */
+    private static final class Block {
+        final int[] targets;
+        final double[] weights;
+        final Block next;
+        // slots handed out, can run past the length once the block is full
+        volatile int reserved;
+
+        Block(int capacity, Block next) {
+            targets = new int[capacity];
+            weights = new double[capacity];
+            this.next = next;
+        }
+
+        int size() {
+            return Math.min(reserved, targets.length);
+        }
+    }
+
+    /**
+     * CHUNK_SIZE consecutive nodes and the heads of their edge chains
+     */
+    private static final class Chunk<T> {
+        final AtomicReferenceArray<Node<T>> nodes = new AtomicReferenceArray<>(CHUNK_SIZE);
+        final AtomicReferenceArray<Block> heads = new AtomicReferenceArray<>(CHUNK_SIZE);
+    }
+
+    // a field updater instead of an AtomicInteger per block, one less object
+    // to chase per edge
+    private static final AtomicIntegerFieldUpdater<Block> RESERVED = AtomicIntegerFieldUpdater
+            .newUpdater(Block.class, "reserved");
+
+    private final boolean directed;
+    private final AtomicReferenceArray<Chunk<T>> chunks = new AtomicReferenceArray<>(MAX_CHUNKS);
+    private final ConcurrentHashMap<Node<T>, Integer> lookIndex = new ConcurrentHashMap<>();
+    private final AtomicInteger nodeCount = new AtomicInteger();
+    private final LongAdder edgeCount = new LongAdder();
+
+    /**
+     * Creates an empty list
+     *
+     * @param directed False to store every edge in both directions, self loops
+     *                 once
+     */
+    public ConcurrentAdjList(boolean directed) {
+        this.directed = directed;
+    }
+
+    /**
+     * Adds a node
+     *
+     * @param node Node to be added
+     * @return Returns the node's index, -1 if it was already added
+     */
+    public int addNode(Node<T> node) {
+        boolean[] added = new boolean[1];
+        int index = lookIndex.computeIfAbsent(node, key -> {
+            added[0] = true;
+            return nodeCount.getAndIncrement();
+        });
+        if (!added[0])
+            return -1;
+        chunk(index).nodes.set(index & (CHUNK_SIZE - 1), node);
+        return index;
+    }
+
+    /**
+     * Adds an unweighted (weight 1.0) edge
+     *
+     * @param indexOne Index of the SOURCE node
+     * @param indexTwo Index of the TARGET node
+     * @return Returns false if either index hasn't been handed out
+     */
+    public boolean addEdge(int indexOne, int indexTwo) {
+        return addEdge(indexOne, indexTwo, 1.0);
+    }
+
+    /**
+     * Adds a weighted edge
+     *
+     * @param indexOne Index of the SOURCE node
+     * @param indexTwo Index of the TARGET node
+     * @param weight   Weight of the edge
+     * @return Returns false if either index hasn't been handed out
+     */
+    public boolean addEdge(int indexOne, int indexTwo, double weight) {
+        int n = nodeCount.get();
+        if (indexOne < 0 || indexTwo < 0 || indexOne >= n || indexTwo >= n)
+            return false;
+        append(indexOne, indexTwo, weight);
+        if (!directed && indexOne != indexTwo)
+            append(indexTwo, indexOne, weight);
+        edgeCount.increment();
+        return true;
+    }
+
+    /**
+     * Adds a weighted edge between two nodes
+     *
+     * @param nodeOne The SOURCE node
+     * @param nodeTwo The TARGET node
+     * @param weight  Weight of the edge
+     * @return Returns false if either node hasn't been added
+     */
+    public boolean addEdge(Node<T> nodeOne, Node<T> nodeTwo, double weight) {
+        return addEdge(indexOf(nodeOne), indexOf(nodeTwo), weight);
+    }
+
+    /**
+     * @param node Node to be looked up
+     * @return Returns the node's index, -1 if it hasn't been added
+     */
+    public int indexOf(Node<T> node) {
+        Integer index = lookIndex.get(node);
+        return (index == null) ? -1 : index;
+    }
+
+    /**
+     * @param index Index of the node
+     * @return Returns the node, null if the index hasn't been handed out (or
+     *         its addNode() hasn't finished)
+     */
+    public Node<T> getNode(int index) {
+        if (index < 0 || index >= nodeCount.get())
+            return null;
+        return chunk(index).nodes.get(index & (CHUNK_SIZE - 1));
+    }
+
+    /**
+     * @param index Index of the node
+     * @return Returns the number of edges stored for the node, both directions
+     *         count for undirected lists
+     */
+    public int degree(int index) {
+        int degree = 0;
+        for (Block b = head(index); b != null; b = b.next) {
+            degree += b.size();
+        }
+        return degree;
+    }
+
+    /**
+     * @return Returns the number of nodes
+     */
+    public int getSize() {
+        return nodeCount.get();
+    }
+
+    /**
+     * @return Returns the number of addEdge() calls that added an edge
+     */
+    public long getEdgeCount() {
+        return edgeCount.sum();
+    }
+
+    /**
+     * Freezes the list using the common pool
+     *
+     * @return Returns the snapshot, indexed like this list
+     */
+    public CSRGraph<T> freeze() {
+        return freeze(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Copies the edge blocks into a CSRGraph, rows are counted, then filled
+     * and sorted, in parallel. Call once the producers are done
+     *
+     * @param pool Pool to split nodes across
+     * @return Returns the snapshot, indexed like this list
+     */
+    public CSRGraph<T> freeze(ForkJoinPool pool) {
+        int n = nodeCount.get();
+        int[] offsets = new int[n + 1];
+        Parallel.forRange(pool, 0, n, MIN_GRAIN, (from, to) -> {
+            for (int u = from; u < to; u++) {
+                offsets[u + 1] = degree(u);
+            }
+        });
+        for (int u = 0; u < n; u++) {
+            offsets[u + 1] += offsets[u];
+        }
+        int[] targets = new int[offsets[n]];
+        double[] weights = new double[offsets[n]];
+        Parallel.forRange(pool, 0, n, MIN_GRAIN, (from, to) -> {
+            // scratch for sorting rows, one per task
+            long[] keys = new long[0];
+            double[] scratch = new double[0];
+            for (int u = from; u < to; u++) {
+                int base = offsets[u];
+                int degree = offsets[u + 1] - base;
+                if (keys.length < degree) {
+                    keys = new long[degree];
+                    scratch = new double[degree];
+                }
+                int k = 0;
+                for (Block b = head(u); b != null; b = b.next) {
+                    for (int i = 0; i < b.size(); i++, k++) {
+                        // sort by target, low 32 bits remember where the weight is
+                        keys[k] = ((long) b.targets[i] << 32) | k;
+                        scratch[k] = b.weights[i];
+                    }
+                }
+                Arrays.sort(keys, 0, degree);
+                for (k = 0; k < degree; k++) {
+                    targets[base + k] = (int) (keys[k] >>> 32);
+                    weights[base + k] = scratch[(int) keys[k]];
+                }
+            }
+        });
+        return new CSRGraph<>(nodeList(n), offsets, targets, weights);
+    }
+
+    /**
+     * Builds a regular Graph out of the list through GraphBuilder. The graph
+     * gets new Node objects with the same values and positions, node i here
+     * gets id i there. Call once the producers are done
+     *
+     * @param graphType      Sum of Graph.Type values
+     * @param baseValue      Value the graph's naming function starts from
+     * @param namingFunction Gives each later node its value
+     * @return Returns the graph, or null if the edges break the graph type
+     *         (repeated edges in a graph that isn't MULTI)
+     */
+    public Graph<T> toGraph(int graphType, T baseValue, NamingFunction<T> namingFunction) {
+        int n = nodeCount.get();
+        boolean weighted = (graphType & 2) > 0;
+        GraphBuilder<T> builder = new GraphBuilder<>(graphType, baseValue, namingFunction);
+        builder.expectNodes(n);
+        builder.expectEdges((int) Math.min(Integer.MAX_VALUE, edgeCount.sum()));
+        for (int u = 0; u < n; u++) {
+            Node<T> node = getNode(u);
+            builder.addNode(node.getPos(), node.getVal());
+        }
+        for (int u = 0; u < n; u++) {
+            for (Block b = head(u); b != null; b = b.next) {
+                for (int k = 0; k < b.size(); k++) {
+                    int v = b.targets[k];
+                    // undirected edges are stored at both ends, take one
+                    if (!directed && v < u)
+                        continue;
+                    if (weighted)
+                        builder.addEdge(u, v, b.weights[k]);
+                    else
+                        builder.addEdge(u, v);
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Adds target to the edges of source
+     */
+    private void append(int source, int target, double weight) {
+        Chunk<T> chunk = chunk(source);
+        int slot = source & (CHUNK_SIZE - 1);
+        while (true) {
+            Block b = chunk.heads.get(slot);
+            if (b != null) {
+                int k = RESERVED.getAndIncrement(b);
+                if (k < b.targets.length) {
+                    b.targets[k] = target;
+                    b.weights[k] = weight;
+                    return;
+                }
+            }
+            // full or missing, the new block is only seen once it holds the edge
+            int capacity = (b == null) ? FIRST_BLOCK : Math.min(b.targets.length * 2, MAX_BLOCK);
+            Block bigger = new Block(capacity, b);
+            bigger.targets[0] = target;
+            bigger.weights[0] = weight;
+            bigger.reserved = 1;
+            if (chunk.heads.compareAndSet(slot, b, bigger))
+                return;
+        }
+    }
+
+    private Block head(int index) {
+        return chunk(index).heads.get(index & (CHUNK_SIZE - 1));
+    }
+
+    /**
+     * @return Returns the chunk an index lives in, creating it if needed
+     */
+    private Chunk<T> chunk(int index) {
+        int c = index >>> CHUNK_BITS;
+        Chunk<T> chunk = chunks.get(c);
+        if (chunk == null) {
+            chunks.compareAndSet(c, null, new Chunk<>());
+            chunk = chunks.get(c);
+        }
+        return chunk;
+    }
+
+    private List<Node<T>> nodeList(int n) {
+        ArrayList<Node<T>> nodes = new ArrayList<>(n);
+        for (int u = 0; u < n; u++) {
+            nodes.add(getNode(u));
+        }
+        return nodes;
+    }
+
+}
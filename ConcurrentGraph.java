@@ -0,0 +1,216 @@
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A Graph that any number of threads can read while others write
+ *
+ * Writers go through update() or submit() + flush(). Changes are applied to
+ * a private Graph under a lock, then the result is frozen into a CSRGraph and
+ * published with a single volatile write (copy on write). Readers call
+ * snapshot() and get whatever was published last: an immutable CSRGraph and
+ * its version, never a half applied batch, and never a lock. A snapshot stays
+ * usable as long as it's referenced, later batches don't change it
+ *
+ * Publishing copies the whole graph, O(n + m), so it pays to batch: queue
+ * changes from any thread with submit() and let one flush() apply them all
+ * and publish once. Node objects are shared with the snapshots, not copied,
+ * so setVal() and setPos() on them show up everywhere at once
+ *
+ * Member Methods:
+ * - snapshot()
+ * - read()
+ * - getVersion()
+ * - update(Batch<T> batch)
+ * - submit(Batch<T> batch)
+ * - flush()
+ * - getPending()
+ * - edgeExists(Node<T> nodeOne, Node<T> nodeTwo)
+ * - getNeighbors(Node<T> node)
+ * - getSize()
+ *
+ * @version 1.0
+ */
+public class ConcurrentGraph<T> {
+
+    /**
+     * Changes to apply to the graph in one go. Only ever runs under the write
+     * lock, and the graph must not be kept around after it returns
+     */
+    @FunctionalInterface
+    public interface Batch<T> {
+        void apply(Graph<T> graph);
+    }
+
+    /**
+     * A published state of the graph
+     */
+    public static final class Snapshot<T> {
+        private final CSRGraph<T> graph;
+        private final long version;
+
+        Snapshot(CSRGraph<T> graph, long version) {
+            this.graph = graph;
+            this.version = version;
+        }
+
+        /**
+         * @return Returns the frozen graph
+         */
+        public CSRGraph<T> getGraph() {
+            return graph;
+        }
+
+        /**
+         * @return Returns how many publishes came before this one
+         */
+        public long getVersion() {
+            return version;
+        }
+    }
+
+    private final Graph<T> graph;
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final ConcurrentLinkedQueue<Batch<T>> pending = new ConcurrentLinkedQueue<>();
+    private volatile Snapshot<T> current;
+
+    /**
+     * Creates an empty graph and publishes it as version 0
+     *
+     * @param graphType      Sum of Graph.Type values
+     * @param baseValue      Value of the first node
+     * @param namingFunction Gives each node its value from the last one
+     */
+    public ConcurrentGraph(int graphType, T baseValue, NamingFunction<T> namingFunction) {
+        graph = new Graph<>(graphType, baseValue, namingFunction);
+        current = new Snapshot<>(graph.freeze(), 0);
+    }
+
+    /**
+     * Lock free, take one snapshot and ask it everything that has to agree
+     *
+     * @return Returns the last published snapshot
+     */
+    public Snapshot<T> snapshot() {
+        return current;
+    }
+
+    /**
+     * @return Returns the graph of the last published snapshot
+     */
+    public CSRGraph<T> read() {
+        return current.graph;
+    }
+
+    /**
+     * @return Returns the version of the last published snapshot
+     */
+    public long getVersion() {
+        return current.version;
+    }
+
+    /**
+     * Applies a batch, along with anything submitted before it, and publishes
+     * the result. Blocks while another writer is publishing
+     *
+     * @param batch Changes to make
+     * @return Returns the version that was published
+     */
+    public long update(Batch<T> batch) {
+        writeLock.lock();
+        try {
+            drain();
+            try {
+                batch.apply(graph);
+            } finally {
+                // whatever the batch got done before failing is in the graph,
+                // publish it so readers and the graph agree
+                publish();
+            }
+            return current.version;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Queues a batch for the next flush() or update(). Never blocks
+     *
+     * @param batch Changes to make
+     */
+    public void submit(Batch<T> batch) {
+        pending.add(batch);
+    }
+
+    /**
+     * Applies every queued batch in the order they were submitted and
+     * publishes once. Nothing is published if nothing was queued
+     *
+     * @return Returns the version readers see now
+     */
+    public long flush() {
+        writeLock.lock();
+        try {
+            if (!pending.isEmpty()) {
+                try {
+                    drain();
+                } finally {
+                    publish();
+                }
+            }
+            return current.version;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * @return Returns roughly how many batches are waiting for a flush()
+     */
+    public int getPending() {
+        return pending.size();
+    }
+
+    /**
+     * @param nodeOne The SOURCE node
+     * @param nodeTwo The TARGET node
+     * @return Returns true if the last published snapshot has the edge
+     */
+    public boolean edgeExists(Node<T> nodeOne, Node<T> nodeTwo) {
+        return current.graph.edgeExists(nodeOne, nodeTwo);
+    }
+
+    /**
+     * @param node The SOURCE node
+     * @return Returns the TARGET nodes in the last published snapshot, null if
+     *         the node isn't in it
+     */
+    public List<Node<T>> getNeighbors(Node<T> node) {
+        return current.graph.getNeighbors(node);
+    }
+
+    /**
+     * @return Returns the number of nodes in the last published snapshot
+     */
+    public int getSize() {
+        return current.graph.getSize();
+    }
+
+    /**
+     * Applies the queued batches, caller holds the lock
+     */
+    private void drain() {
+        Batch<T> batch;
+        while ((batch = pending.poll()) != null) {
+            batch.apply(graph);
+        }
+    }
+
+    /**
+     * Freezes the graph and makes it what readers see, caller holds the lock
+     */
+    private void publish() {
+        current = new Snapshot<>(graph.freeze(), current.version + 1);
+    }
+
+}
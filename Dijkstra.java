@@ -0,0 +1,279 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Single source shortest paths over a CSRGraph (or any Adjacency, such as a
+ * MappedGraph, then getPath() has no nodes to give back and pathTo() is the
+ * way to get paths)
+ *
+ * One Dijkstra is meant to be kept around and run over and over on the same
+ * snapshot. The distance and predecessor arrays are allocated once and only
+ * the entries a run touched are reset before the next run, so repeated
+ * queries don't allocate anything. Nodes are the snapshot's dense indices
+ * (CSRGraph.indexOf())
+ *
+ * Weights can't be negative, run() refuses to start on a snapshot that has a
+ * negative weight. Unweighted graphs store 1.0 per edge so they work too
+ *
+ * Member Methods:
+ * - run(int source)
+ * - run(int source, int target)
+ * - getSource()
+ * - distance(int index)
+ * - predecessor(int index)
+ * - predecessorEdge(int index)
+ * - isSettled(int index)
+ * - getDistances()
+ * - getPredecessors()
+ * - pathTo(int target, int[] path)
+ * - getPath(Node<T> target)
+ *
+ * @version 1.0
+ */
+public class Dijkstra<T> {
+
+    private final Adjacency graph;
+    // null when running on a plain Adjacency
+    private final CSRGraph<T> nodes;
+    private final boolean negative;
+
+    private final double[] dist;
+    private final int[] pred;
+    private final int[] predEdge;
+    private final boolean[] settled;
+    private final IndexedHeap heap;
+
+    // every index whose entries aren't at their defaults
+    private final int[] touched;
+    private int touchedCount;
+    private int source = -1;
+
+    /**
+     * Creates the engine and its buffers for a snapshot
+     *
+     * @param graph Snapshot to search
+     */
+    public Dijkstra(CSRGraph<T> graph) {
+        this(graph, graph);
+    }
+
+    /**
+     * Creates the engine and its buffers for any adjacency
+     *
+     * @param graph Adjacency to search
+     */
+    public Dijkstra(Adjacency graph) {
+        this(graph, null);
+    }
+
+    private Dijkstra(Adjacency graph, CSRGraph<T> nodes) {
+        this.graph = graph;
+        this.nodes = nodes;
+        int n = graph.getSize();
+        dist = new double[n];
+        pred = new int[n];
+        predEdge = new int[n];
+        settled = new boolean[n];
+        heap = new IndexedHeap(n);
+        touched = new int[n];
+        Arrays.fill(dist, Double.POSITIVE_INFINITY);
+        Arrays.fill(pred, -1);
+        Arrays.fill(predEdge, -1);
+
+        boolean neg = false;
+        for (int u = 0; u < n && !neg; u++) {
+            for (int e = graph.edgeStart(u); e < graph.edgeEnd(u); e++) {
+                if (graph.edgeWeight(e) < 0) {
+                    neg = true;
+                    break;
+                }
+            }
+        }
+        negative = neg;
+    }
+
+    /**
+     * Finds the shortest path from source to every node it can reach
+     *
+     * @param source Index of the node to start from
+     * @return Returns false if source isn't an index in the snapshot or the
+     *         snapshot has negative weights, true otherwise
+     */
+    public boolean run(int source) {
+        return run(source, -1);
+    }
+
+    /**
+     * Finds shortest paths from source, stopping as soon as target's distance
+     * is final. Only nodes that are settled by then have final distances
+     *
+     * @param source Index of the node to start from
+     * @param target Index of the node to stop at, -1 to search everything
+     * @return Returns false if source isn't an index in the snapshot or the
+     *         snapshot has negative weights, true otherwise (even if target
+     *         wasn't reached)
+     */
+    public boolean run(int source, int target) {
+        if (negative || source < 0 || source >= dist.length)
+            return false;
+        reset();
+        this.source = source;
+
+        touch(source);
+        dist[source] = 0;
+        heap.push(source, 0);
+        while (!heap.isEmpty()) {
+            int u = heap.pop();
+            settled[u] = true;
+            if (u == target)
+                break;
+            double du = dist[u];
+            for (int e = graph.edgeStart(u), end = graph.edgeEnd(u); e < end; e++) {
+                int v = graph.edgeTarget(e);
+                double dv = du + graph.edgeWeight(e);
+                if (dv < dist[v]) {
+                    if (dist[v] == Double.POSITIVE_INFINITY)
+                        touch(v);
+                    dist[v] = dv;
+                    pred[v] = u;
+                    predEdge[v] = e;
+                    heap.push(v, dv);
+                }
+            }
+        }
+        heap.clear();
+        return true;
+    }
+
+    /**
+     * @return Returns the source of the last run, -1 if there wasn't one
+     */
+    public int getSource() {
+        return source;
+    }
+
+    /**
+     * @param index Index of the node
+     * @return Returns the distance from the source found by the last run,
+     *         Double.POSITIVE_INFINITY if it wasn't reached
+     */
+    public double distance(int index) {
+        return dist[index];
+    }
+
+    /**
+     * @param index Index of the node
+     * @return Returns the node before it on the shortest path, -1 for the source
+     *         and nodes that weren't reached
+     */
+    public int predecessor(int index) {
+        return pred[index];
+    }
+
+    /**
+     * @param index Index of the node
+     * @return Returns the position (CSRGraph.edgeTarget() etc.) of the edge the
+     *         shortest path arrives by, -1 for the source and nodes that
+     *         weren't reached
+     */
+    public int predecessorEdge(int index) {
+        return predEdge[index];
+    }
+
+    /**
+     * @param index Index of the node
+     * @return Returns true if the node's distance is final
+     */
+    public boolean isSettled(int index) {
+        return settled[index];
+    }
+
+    /**
+     * The array itself, not a copy. It's overwritten by the next run so copy it
+     * if you need to keep it
+     *
+     * @return Returns the distances by node index
+     */
+    public double[] getDistances() {
+        return dist;
+    }
+
+    /**
+     * The array itself, not a copy. It's overwritten by the next run so copy it
+     * if you need to keep it
+     *
+     * @return Returns the predecessors by node index
+     */
+    public int[] getPredecessors() {
+        return pred;
+    }
+
+    /**
+     * Writes the shortest path from the source to target into an array without
+     * allocating
+     *
+     * @param target Index of the last node of the path
+     * @param path   Array to write the indices into, source first. Needs room for
+     *               the whole path, getSize() of the snapshot is always enough
+     * @return Returns the number of nodes in the path, 0 if target wasn't
+     *         reached or path is too small
+     */
+    public int pathTo(int target, int[] path) {
+        if (source < 0 || target < 0 || target >= dist.length || dist[target] == Double.POSITIVE_INFINITY)
+            return 0;
+        int length = 0;
+        for (int v = target; v >= 0; v = pred[v]) {
+            length++;
+        }
+        if (length > path.length)
+            return 0;
+        int i = length;
+        for (int v = target; v >= 0; v = pred[v]) {
+            path[--i] = v;
+        }
+        return length;
+    }
+
+    /**
+     * Gets the shortest path from the source of the last run to a node. This
+     * one allocates, use pathTo() in hot loops
+     *
+     * @param target Last node of the path
+     * @return Returns the nodes of the path, source first, empty if target wasn't
+     *         reached, isn't in the snapshot or there is no snapshot
+     */
+    public List<Node<T>> getPath(Node<T> target) {
+        if (nodes == null)
+            return Collections.emptyList();
+        int index = nodes.indexOf(target);
+        if (index < 0 || source < 0 || dist[index] == Double.POSITIVE_INFINITY)
+            return Collections.emptyList();
+        ArrayList<Node<T>> path = new ArrayList<>();
+        for (int v = index; v >= 0; v = pred[v]) {
+            path.add(nodes.getNode(v));
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    /**
+     * Puts every entry the last run changed back to its default
+     */
+    private void reset() {
+        for (int i = 0; i < touchedCount; i++) {
+            int v = touched[i];
+            dist[v] = Double.POSITIVE_INFINITY;
+            pred[v] = -1;
+            predEdge[v] = -1;
+            settled[v] = false;
+        }
+        touchedCount = 0;
+    }
+
+    private void touch(int v) {
+        touched[touchedCount++] = v;
+    }
+
+}
@@ -0,0 +1,69 @@
+/**
+ * An edge in an adjacency list
+ * 
+ * Still a Pair of TARGET node and weight so it drops into the edge lists like
+ * before, but it also remembers its SOURCE, where it sits in the source's edge
+ * list and the target's incoming list (so it can be removed without a scan),
+ * and the id the owning graph gave it. Both directions of an undirected edge
+ * share one id and point at each other through twin
+ * 
+ * @version 1.0
+ */
+public class Edge<T> extends Pair<Node<T>, Double> {
+
+    Node<T> source;
+    Edge<T> twin;
+    int id = -1;
+    int slot = -1;
+    int inSlot = -1;
+    // other edges with the same source and target, only kept up to date while
+    // the source has a NeighborIndex
+    Edge<T> nextSame;
+    Edge<T> prevSame;
+
+    Edge(Node<T> source, Node<T> target, Double weight) {
+        super(target, weight);
+        this.source = source;
+    }
+
+    /**
+     * @return Returns the SOURCE node
+     */
+    public Node<T> getSource() {
+        return source;
+    }
+
+    /**
+     * @return Returns the TARGET node
+     */
+    public Node<T> getTarget() {
+        return one;
+    }
+
+    /**
+     * @return Returns the weight of the edge
+     */
+    public double getWeight() {
+        return two;
+    }
+
+    /**
+     * @return Returns the id the graph gave the edge, -1 if it has none or was
+     *         removed
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * @return Returns true while the edge is still in its adjacency list
+     */
+    public boolean isLinked() {
+        return slot >= 0;
+    }
+
+    public String toString() {
+        return "(" + source.getVal() + " -> " + one.getVal() + ", " + two + ")";
+    }
+
+}
@@ -0,0 +1,697 @@
+import java.awt.Point;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Loads a graph from a text edge list, one "source target [weight]" per line
+ *
+ * Columns are split by spaces, tabs, commas or semicolons, so plain edge
+ * lists and CSV both work. Labels are integers (anything that fits in a
+ * long), the third column is only read for WEIGHTED graphs (a missing weight
+ * is 1.0) and anything after it is ignored. Blank lines and lines starting
+ * with # or % are skipped, any other line that doesn't parse (a CSV header
+ * for one) is skipped and counted in getSkipped()
+ *
+ * The file is read in chunks with positional FileChannel reads and each chunk
+ * is parsed straight from its bytes in the pool, no String per line. A chunk
+ * owns the lines that start in it. Meanwhile the calling thread takes the
+ * parsed chunks in file order and turns labels into dense indices through a
+ * primitive long -> int hash table, so node i is the i-th label to show up in
+ * the file. Only a few chunks are in flight at once, so memory stays at the
+ * size of the result. Graph type rules are applied as edges come in: unless
+ * the graph is MULTI, an edge that repeats an earlier one (either way round
+ * for undirected graphs) is dropped and counted in getDuplicates(), and
+ * undirected edges are mirrored when building
+ *
+ * The result is built into a Graph through GraphBuilder with toGraph(), or
+ * straight into a CSRGraph with freeze() for graphs too big for Graph's
+ * adjacency matrix
+ *
+ * Member Methods:
+ * - setProgress(Progress progress)
+ * - setChunkSize(int bytes)
+ * - load(Path file)
+ * - getSize()
+ * - getEdgeCount()
+ * - getLabel(int index)
+ * - indexOf(long label)
+ * - getSkipped()
+ * - getDuplicates()
+ * - getBytes()
+ * - getMillis()
+ * - getThroughput()
+ * - toGraph()
+ * - freeze()
+ *
+ * @version 1.0
+ */
+public class EdgeListImporter<T> {
+
+    /**
+     * Told how far load() is after each chunk, on the thread calling load()
+     */
+    @FunctionalInterface
+    public interface Progress {
+        void report(long bytesRead, long bytesTotal, long edges, double bytesPerSecond);
+    }
+
+    private static final int DEFAULT_CHUNK = 1 << 24;
+    // read past the end of a chunk to finish its last line, grows if a line
+    // is longer
+    private static final int SLACK = 1 << 16;
+    // chunks in flight per worker
+    private static final int WINDOW_PER_THREAD = 2;
+    // nodes per task when freezing
+    private static final int MIN_GRAIN = 4096;
+    // spacing of the grid nodes are laid out on
+    private static final int SPACING = 32;
+    // doubles with at most this many digits and a power of ten up to 22 are
+    // exact with one multiply or divide
+    private static final int EXACT_DIGITS = 15;
+    private static final double[] POW10 = new double[23];
+
+    static {
+        POW10[0] = 1;
+        for (int i = 1; i < POW10.length; i++) {
+            POW10[i] = POW10[i - 1] * 10;
+        }
+    }
+
+    private final int graphType;
+    private final T baseValue;
+    private final NamingFunction<T> naming_f;
+    private final ForkJoinPool pool;
+    private Progress progress;
+    private int chunkSize = DEFAULT_CHUNK;
+
+    private LongIntMap lookIndex;
+    // keys of the edges kept so far, for graphs that aren't MULTI
+    private LongIntMap edgeKeys;
+    private long[] labels;
+    private int n;
+    private int[] sources;
+    private int[] targets;
+    private double[] weights;
+    private int m;
+    private long skipped;
+    private long duplicates;
+    private long bytes;
+    private long millis;
+
+    /**
+     * Creates an importer using the common pool, arguments are the same as
+     * Graph's constructor
+     */
+    public EdgeListImporter(int graphType, T baseValue, NamingFunction<T> naming_f) {
+        this(graphType, baseValue, naming_f, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates an importer
+     *
+     * @param pool Pool to parse chunks in
+     */
+    public EdgeListImporter(int graphType, T baseValue, NamingFunction<T> naming_f, ForkJoinPool pool) {
+        this.graphType = graphType;
+        this.baseValue = baseValue;
+        this.naming_f = naming_f;
+        this.pool = pool;
+        reset();
+    }
+
+    /**
+     * @param progress Told about each chunk as it's loaded, null for nothing
+     */
+    public void setProgress(Progress progress) {
+        this.progress = progress;
+    }
+
+    /**
+     * @param bytes Bytes of the file per chunk, the default is 16MB
+     */
+    public void setChunkSize(int bytes) {
+        chunkSize = Math.max(1, bytes);
+    }
+
+    /**
+     * Reads an edge list, replacing whatever was loaded before
+     *
+     * @param file File to read
+     * @return Returns false if the file couldn't be read
+     */
+    public boolean load(Path file) {
+        reset();
+        long begin = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            int chunks = (int) ((size + chunkSize - 1) / chunkSize);
+            int window = Math.max(2, pool.getParallelism() * WINDOW_PER_THREAD);
+            ArrayDeque<ForkJoinTask<Chunk>> inFlight = new ArrayDeque<>();
+            int next = 0;
+            for (int c = 0; c < chunks; c++) {
+                while (next < chunks && next - c < window) {
+                    long start = (long) next * chunkSize;
+                    long end = Math.min(size, start + chunkSize);
+                    inFlight.add(pool.submit(() -> parse(channel, size, start, end)));
+                    next++;
+                }
+                Chunk chunk = inFlight.poll().join();
+                resolve(chunk);
+                bytes += chunk.bytes;
+                millis = (System.nanoTime() - begin) / 1_000_000;
+                if (progress != null)
+                    progress.report(bytes, size, m, getThroughput());
+            }
+        } catch (IOException | UncheckedIOException e) {
+            reset();
+            return false;
+        }
+        sources = Arrays.copyOf(sources, m);
+        targets = Arrays.copyOf(targets, m);
+        weights = Arrays.copyOf(weights, m);
+        labels = Arrays.copyOf(labels, n);
+        edgeKeys = new LongIntMap();
+        millis = (System.nanoTime() - begin) / 1_000_000;
+        return true;
+    }
+
+    /**
+     * @return Returns the number of distinct labels loaded
+     */
+    public int getSize() {
+        return n;
+    }
+
+    /**
+     * @return Returns the number of edges kept, undirected edges count once
+     */
+    public int getEdgeCount() {
+        return m;
+    }
+
+    /**
+     * @param index Index of the node
+     * @return Returns the label the node had in the file
+     */
+    public long getLabel(int index) {
+        return labels[index];
+    }
+
+    /**
+     * @param label Label from the file
+     * @return Returns the node's index (its id in toGraph()), -1 if the label
+     *         wasn't in the file
+     */
+    public int indexOf(long label) {
+        return lookIndex.get(label);
+    }
+
+    /**
+     * @return Returns the number of lines that didn't parse
+     */
+    public long getSkipped() {
+        return skipped;
+    }
+
+    /**
+     * @return Returns the number of edges dropped for repeating an earlier one
+     */
+    public long getDuplicates() {
+        return duplicates;
+    }
+
+    /**
+     * @return Returns the number of bytes read
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * @return Returns how long the last load() took
+     */
+    public long getMillis() {
+        return millis;
+    }
+
+    /**
+     * @return Returns bytes read per second
+     */
+    public double getThroughput() {
+        return (millis == 0) ? 0 : bytes * 1000.0 / millis;
+    }
+
+    /**
+     * Builds a Graph out of what was loaded through GraphBuilder. Node i gets
+     * id i, values come from the naming function and nodes are laid out on a
+     * grid
+     *
+     * @return Returns the new graph
+     */
+    public Graph<T> toGraph() {
+        boolean weighted = (graphType & 2) > 0;
+        GraphBuilder<T> builder = new GraphBuilder<>(graphType, baseValue, naming_f);
+        builder.expectNodes(n);
+        for (int i = 0; i < n; i++) {
+            builder.addNode(position(i));
+        }
+        if (weighted)
+            builder.addEdges(sources, targets, weights);
+        else
+            builder.addEdges(sources, targets);
+        return builder.build();
+    }
+
+    /**
+     * Builds a CSRGraph straight out of what was loaded, without a Graph in
+     * between. Nodes are made like toGraph() makes them, undirected edges are
+     * stored both ways and rows are sorted in parallel. The snapshot has no
+     * edge ids
+     *
+     * @return Returns the snapshot, node i is index i
+     */
+    public CSRGraph<T> freeze() {
+        boolean undirected = (graphType & 1) == 0;
+        boolean weighted = (graphType & 2) > 0;
+        int[] offsets = new int[n + 1];
+        for (int e = 0; e < m; e++) {
+            offsets[sources[e] + 1]++;
+            if (undirected && sources[e] != targets[e])
+                offsets[targets[e] + 1]++;
+        }
+        for (int u = 0; u < n; u++) {
+            offsets[u + 1] += offsets[u];
+        }
+        int[] csrTargets = new int[offsets[n]];
+        double[] csrWeights = new double[offsets[n]];
+        int[] fill = Arrays.copyOf(offsets, n);
+        for (int e = 0; e < m; e++) {
+            double w = weighted ? weights[e] : 1.0;
+            int k = fill[sources[e]]++;
+            csrTargets[k] = targets[e];
+            csrWeights[k] = w;
+            if (undirected && sources[e] != targets[e]) {
+                k = fill[targets[e]]++;
+                csrTargets[k] = sources[e];
+                csrWeights[k] = w;
+            }
+        }
+        Parallel.forRange(pool, 0, n, MIN_GRAIN, (from, to) -> {
+            // scratch for sorting rows, one per task
+            long[] keys = new long[0];
+            double[] scratch = new double[0];
+            for (int u = from; u < to; u++) {
+                int base = offsets[u];
+                int degree = offsets[u + 1] - base;
+                if (keys.length < degree) {
+                    keys = new long[degree];
+                    scratch = new double[degree];
+                }
+                for (int k = 0; k < degree; k++) {
+                    // sort by target, low 32 bits remember where the weight is
+                    keys[k] = ((long) csrTargets[base + k] << 32) | k;
+                    scratch[k] = csrWeights[base + k];
+                }
+                Arrays.sort(keys, 0, degree);
+                for (int k = 0; k < degree; k++) {
+                    csrTargets[base + k] = (int) (keys[k] >>> 32);
+                    csrWeights[base + k] = scratch[(int) keys[k]];
+                }
+            }
+        });
+
+        ArrayList<Node<T>> nodes = new ArrayList<>(n);
+        T val = baseValue;
+        for (int i = 0; i < n; i++) {
+            val = naming_f.apply(val);
+            Node<T> node = new Node<>(val, position(i));
+            node.setId(i);
+            nodes.add(node);
+        }
+        return new CSRGraph<>(nodes, offsets, csrTargets, csrWeights);
+    }
+
+    private void reset() {
+        lookIndex = new LongIntMap();
+        edgeKeys = new LongIntMap();
+        labels = new long[16];
+        n = 0;
+        sources = new int[16];
+        targets = new int[16];
+        weights = new double[16];
+        m = 0;
+        skipped = 0;
+        duplicates = 0;
+        bytes = 0;
+        millis = 0;
+    }
+
+    private Point position(int index) {
+        int side = (int) Math.ceil(Math.sqrt(n));
+        return new Point((index % side) * SPACING, (index / side) * SPACING);
+    }
+
+    /**
+     * Turns a parsed chunk's labels into indices and keeps the edges the graph
+     * type allows, in file order
+     */
+    private void resolve(Chunk chunk) {
+        boolean undirected = (graphType & 1) == 0;
+        boolean multi = (graphType & 4) > 0;
+        skipped += chunk.skipped;
+        if (m + chunk.count > sources.length) {
+            int size = Math.max(m + chunk.count, sources.length * 2);
+            sources = Arrays.copyOf(sources, size);
+            targets = Arrays.copyOf(targets, size);
+            weights = Arrays.copyOf(weights, size);
+        }
+        for (int i = 0; i < chunk.count; i++) {
+            int one = index(chunk.sources[i]);
+            int two = index(chunk.targets[i]);
+            if (!multi) {
+                // undirected edges are the same edge both ways
+                long key = (undirected && one > two) ? ((long) two << 32) | one : ((long) one << 32) | two;
+                if (edgeKeys.putIfAbsent(key, 0) >= 0) {
+                    duplicates++;
+                    continue;
+                }
+            }
+            sources[m] = one;
+            targets[m] = two;
+            weights[m] = chunk.weights[i];
+            m++;
+        }
+    }
+
+    private int index(long label) {
+        int index = lookIndex.putIfAbsent(label, n);
+        if (index >= 0)
+            return index;
+        if (n == labels.length)
+            labels = Arrays.copyOf(labels, n * 2);
+        labels[n] = label;
+        return n++;
+    }
+
+    /**
+     * Reads and parses the lines starting in [start, end), runs in the pool
+     */
+    private Chunk parse(FileChannel channel, long size, long start, long end) {
+        try {
+            return new Chunk(channel, size, start, end, (graphType & 2) > 0);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * The edges parsed out of one chunk of the file, labels not resolved yet
+     */
+    private static final class Chunk {
+        final long bytes;
+        long[] sources = new long[1024];
+        long[] targets = new long[1024];
+        double[] weights = new double[1024];
+        int count;
+        long skipped;
+
+        private final FileChannel channel;
+        private final long size;
+        private final long from;
+        private byte[] buf;
+        private int len;
+        // where the last token parsed ended
+        private int pos;
+
+        Chunk(FileChannel channel, long size, long start, long end, boolean weighted) throws IOException {
+            this.channel = channel;
+            this.size = size;
+            bytes = end - start;
+            // one byte early, to see if a line starts right at start
+            from = Math.max(0, start - 1);
+            len = (int) Math.min(size - from, end - from + SLACK);
+            buf = new byte[len];
+            read(0, len);
+
+            int limit = (int) (end - from);
+            int p = 0;
+            if (start > 0) {
+                // the line running into the chunk belongs to the one before
+                while (p < len && buf[p] != '\n') {
+                    p++;
+                }
+                p++;
+            }
+            while (p < limit) {
+                int e = p;
+                while (true) {
+                    while (e < len && buf[e] != '\n') {
+                        e++;
+                    }
+                    if (e < len || from + len == size)
+                        break;
+                    more();
+                }
+                line(p, e, weighted);
+                p = e + 1;
+            }
+            buf = null;
+        }
+
+        private void line(int p, int e, boolean weighted) {
+            p = skip(p, e);
+            if (p == e || buf[p] == '#' || buf[p] == '%')
+                return;
+            long one = label(p, e);
+            if (pos < 0) {
+                skipped++;
+                return;
+            }
+            p = skip(pos, e);
+            long two = label(p, e);
+            if (pos < 0) {
+                skipped++;
+                return;
+            }
+            double weight = 1.0;
+            p = skip(pos, e);
+            if (weighted && p < e) {
+                weight = number(p, e);
+                if (pos < 0) {
+                    skipped++;
+                    return;
+                }
+            }
+            if (count == sources.length) {
+                sources = Arrays.copyOf(sources, count * 2);
+                targets = Arrays.copyOf(targets, count * 2);
+                weights = Arrays.copyOf(weights, count * 2);
+            }
+            sources[count] = one;
+            targets[count] = two;
+            weights[count] = weight;
+            count++;
+        }
+
+        /**
+         * Parses an integer label, pos is set past it or to -1 if it isn't one
+         */
+        private long label(int p, int e) {
+            boolean negative = p < e && buf[p] == '-';
+            if (negative || (p < e && buf[p] == '+'))
+                p++;
+            int digits = 0;
+            long value = 0;
+            while (p < e && buf[p] >= '0' && buf[p] <= '9') {
+                value = value * 10 + (buf[p] - '0');
+                digits++;
+                p++;
+            }
+            // 18 digits always fit in a long
+            pos = (digits == 0 || digits > 18 || !ends(p, e)) ? -1 : p;
+            return negative ? -value : value;
+        }
+
+        /**
+         * Parses a decimal, pos is set past it or to -1 if it isn't one. Short
+         * ones are done here, exactly, the rest go through Double.parseDouble()
+         */
+        private double number(int p, int e) {
+            int token = p;
+            boolean negative = p < e && buf[p] == '-';
+            if (negative || (p < e && buf[p] == '+'))
+                p++;
+            long mantissa = 0;
+            int digits = 0;
+            int exponent = 0;
+            boolean any = false;
+            while (p < e && buf[p] >= '0' && buf[p] <= '9') {
+                if (mantissa != 0 || buf[p] != '0')
+                    digits++;
+                if (digits <= EXACT_DIGITS)
+                    mantissa = mantissa * 10 + (buf[p] - '0');
+                any = true;
+                p++;
+            }
+            if (p < e && buf[p] == '.') {
+                p++;
+                while (p < e && buf[p] >= '0' && buf[p] <= '9') {
+                    if (mantissa != 0 || buf[p] != '0')
+                        digits++;
+                    if (digits <= EXACT_DIGITS) {
+                        mantissa = mantissa * 10 + (buf[p] - '0');
+                        exponent--;
+                    }
+                    any = true;
+                    p++;
+                }
+            }
+            if (any && p < e && (buf[p] == 'e' || buf[p] == 'E')) {
+                p++;
+                boolean negativeExp = p < e && buf[p] == '-';
+                if (negativeExp || (p < e && buf[p] == '+'))
+                    p++;
+                int exp = 0;
+                boolean expDigits = false;
+                while (p < e && buf[p] >= '0' && buf[p] <= '9') {
+                    exp = Math.min(exp * 10 + (buf[p] - '0'), 10000);
+                    expDigits = true;
+                    p++;
+                }
+                if (!expDigits)
+                    any = false;
+                exponent += negativeExp ? -exp : exp;
+            }
+            if (any && ends(p, e) && digits <= EXACT_DIGITS && Math.abs(exponent) < POW10.length) {
+                pos = p;
+                double value = (exponent >= 0) ? mantissa * POW10[exponent] : mantissa / POW10[-exponent];
+                return negative ? -value : value;
+            }
+            // too long, or inf / NaN / not a number, rare enough to allocate
+            while (p < e && !ends(p, e)) {
+                p++;
+            }
+            try {
+                double value = Double.parseDouble(new String(buf, token, p - token, StandardCharsets.US_ASCII));
+                pos = p;
+                return value;
+            } catch (NumberFormatException ex) {
+                pos = -1;
+                return 0;
+            }
+        }
+
+        private boolean ends(int p, int e) {
+            return p == e || separator(buf[p]);
+        }
+
+        private int skip(int p, int e) {
+            while (p < e && separator(buf[p])) {
+                p++;
+            }
+            return p;
+        }
+
+        private static boolean separator(byte b) {
+            return b == ' ' || b == '\t' || b == ',' || b == ';' || b == '\r';
+        }
+
+        /**
+         * Reads further into the file, for a line that runs past the buffer
+         */
+        private void more() throws IOException {
+            int grown = (int) Math.min(size - from, Math.min(Integer.MAX_VALUE - 8, 2L * len));
+            buf = Arrays.copyOf(buf, grown);
+            read(len, grown - len);
+            len = grown;
+        }
+
+        private void read(int offset, int length) throws IOException {
+            ByteBuffer dst = ByteBuffer.wrap(buf, offset, length);
+            while (dst.hasRemaining()) {
+                if (channel.read(dst, from + dst.position()) < 0)
+                    throw new IOException("file shrank while reading");
+            }
+        }
+    }
+
+    /**
+     * Open addressing long -> int hash table, no boxing. Values are never
+     * negative
+     */
+    private static final class LongIntMap {
+        private long[] keys = new long[16];
+        // value + 1, 0 is an empty slot
+        private int[] vals = new int[16];
+        private int size;
+
+        /**
+         * @return Returns the value for key, -1 if there is none
+         */
+        int get(long key) {
+            int mask = keys.length - 1;
+            for (int i = hash(key) & mask;; i = (i + 1) & mask) {
+                if (vals[i] == 0)
+                    return -1;
+                if (keys[i] == key)
+                    return vals[i] - 1;
+            }
+        }
+
+        /**
+         * @return Returns the value already there, or -1 after putting value
+         */
+        int putIfAbsent(long key, int value) {
+            int mask = keys.length - 1;
+            int i = hash(key) & mask;
+            for (; vals[i] != 0; i = (i + 1) & mask) {
+                if (keys[i] == key)
+                    return vals[i] - 1;
+            }
+            keys[i] = key;
+            vals[i] = value + 1;
+            if (++size * 2 > keys.length)
+                rehash();
+            return -1;
+        }
+
+        private void rehash() {
+            long[] oldKeys = keys;
+            int[] oldVals = vals;
+            keys = new long[oldKeys.length * 2];
+            vals = new int[oldKeys.length * 2];
+            int mask = keys.length - 1;
+            for (int j = 0; j < oldKeys.length; j++) {
+                if (oldVals[j] == 0)
+                    continue;
+                int i = hash(oldKeys[j]) & mask;
+                while (vals[i] != 0) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[j];
+                vals[i] = oldVals[j];
+            }
+        }
+
+        private static int hash(long key) {
+            // murmur3 finalizer
+            key ^= key >>> 33;
+            key *= 0xff51afd7ed558ccdL;
+            key ^= key >>> 33;
+            key *= 0xc4ceb53a185ec96bL;
+            key ^= key >>> 33;
+            return (int) key;
+        }
+    }
+
+}
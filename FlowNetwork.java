@@ -0,0 +1,480 @@
+import java.util.Arrays;
+
+/**
+ * Maximum flow and minimum cut over a CSRGraph
+ *
+ * Edge weights are capacities (negative ones count as 0). The snapshot itself
+ * is never touched: the residual graph is a second set of flat arrays built
+ * once in the constructor, every snapshot edge u -> v becomes an arc in u's
+ * row and a reverse arc (capacity 0) in v's row, and mate[] links the two.
+ * Every query starts over from the capacities, so one FlowNetwork answers any
+ * number of queries (and setCapacity() changes) without allocating
+ *
+ * Two algorithms:
+ * - pushRelabel(): FIFO push-relabel. Heights are recomputed from scratch by
+ * a BFS from the sink (and then the source) every n relabels, and when a
+ * height below n runs empty every node above it is lifted past n at once
+ * (gap heuristic). Usually the faster one
+ * - dinic(): BFS levels from the source, then blocking flows along them.
+ * The DFS keeps its own stack of arcs, no recursion
+ *
+ * After either one flow() gives the flow on every edge and minCut() the
+ * source side of a minimum cut
+ *
+ * Member Methods:
+ * - maxFlow(int source, int sink)
+ * - pushRelabel(int source, int sink)
+ * - dinic(int source, int sink)
+ * - setCapacity(int edge, double capacity)
+ * - getCapacity(int edge)
+ * - flow(int edge)
+ * - getFlow()
+ * - minCut()
+ * - inSourceSide(int index)
+ * - getCutEdges()
+ *
+ * @version 1.0
+ */
+public class FlowNetwork<T> {
+
+    private final CSRGraph<T> graph;
+    private final int n;
+
+    // residual graph: arcs of node u are arcStart[u] .. arcStart[u + 1] - 1
+    private final int[] arcStart;
+    private final int[] arcHead;
+    private final int[] mate;
+    private final double[] capacity;
+    private final double[] residual;
+    // forward arc of every snapshot edge
+    private final int[] edgeArc;
+
+    // per node buffers shared by both algorithms
+    private final int[] height;
+    private final double[] excess;
+    private final int[] current;
+    private final int[] queue;
+    private final boolean[] queued;
+    private final int[] heightCount;
+    // Dinic's stack of arcs
+    private final int[] path;
+
+    private double flow;
+    private int source = -1;
+    private final boolean[] sourceSide;
+
+    /**
+     * Builds the residual graph of a snapshot
+     *
+     * @param graph Snapshot with capacities as weights
+     */
+    public FlowNetwork(CSRGraph<T> graph) {
+        this.graph = graph;
+        n = graph.getSize();
+        int m = graph.getEdgeCount();
+
+        arcStart = new int[n + 1];
+        for (int u = 0; u < n; u++) {
+            for (int e = graph.edgeStart(u); e < graph.edgeEnd(u); e++) {
+                arcStart[u + 1]++;
+                arcStart[graph.edgeTarget(e) + 1]++;
+            }
+        }
+        for (int u = 0; u < n; u++) {
+            arcStart[u + 1] += arcStart[u];
+        }
+        arcHead = new int[2 * m];
+        mate = new int[2 * m];
+        capacity = new double[2 * m];
+        residual = new double[2 * m];
+        edgeArc = new int[m];
+        int[] fill = Arrays.copyOf(arcStart, n);
+        for (int u = 0; u < n; u++) {
+            for (int e = graph.edgeStart(u); e < graph.edgeEnd(u); e++) {
+                int v = graph.edgeTarget(e);
+                int forward = fill[u]++;
+                int backward = fill[v]++;
+                arcHead[forward] = v;
+                arcHead[backward] = u;
+                mate[forward] = backward;
+                mate[backward] = forward;
+                capacity[forward] = Math.max(0, graph.edgeWeight(e));
+                edgeArc[e] = forward;
+            }
+        }
+
+        height = new int[n];
+        excess = new double[n];
+        current = new int[n];
+        queue = new int[n];
+        queued = new boolean[n];
+        heightCount = new int[2 * n + 1];
+        path = new int[n];
+        sourceSide = new boolean[n];
+    }
+
+    /**
+     * Computes a maximum flow with pushRelabel()
+     *
+     * @param source Dense index of the source
+     * @param sink   Dense index of the sink
+     * @return Returns the value of the flow, 0 if source and sink are the same
+     *         or either isn't a node of the network
+     */
+    public double maxFlow(int source, int sink) {
+        return pushRelabel(source, sink);
+    }
+
+    /**
+     * Computes a maximum flow with FIFO push-relabel, global relabeling and
+     * the gap heuristic
+     *
+     * @param source Dense index of the source
+     * @param sink   Dense index of the sink
+     * @return Returns the value of the flow, 0 if source and sink are the same
+     *         or either isn't a node of the network, in which case nothing
+     *         (not even the last flow and cut) is changed
+     */
+    public double pushRelabel(int source, int sink) {
+        if (source < 0 || source >= n || sink < 0 || sink >= n)
+            return 0;
+        start(source);
+        if (source == sink)
+            return finish(sink);
+
+        globalRelabel(source, sink);
+        int head = 0;
+        int size = 0;
+        for (int a = arcStart[source]; a < arcStart[source + 1]; a++) {
+            if (residual[a] > 0) {
+                int v = arcHead[a];
+                excess[source] -= residual[a];
+                excess[v] += residual[a];
+                residual[mate[a]] += residual[a];
+                residual[a] = 0;
+                if (v != sink && v != source && !queued[v]) {
+                    queued[v] = true;
+                    queue[(head + size++) % n] = v;
+                }
+            }
+        }
+
+        int relabels = 0;
+        while (size > 0) {
+            int u = queue[head];
+            head = (head + 1) % n;
+            size--;
+            queued[u] = false;
+
+            // discharge u
+            while (excess[u] > 0) {
+                int a = current[u];
+                if (a == arcStart[u + 1]) {
+                    relabel(u);
+                    if (++relabels == n) {
+                        relabels = 0;
+                        globalRelabel(source, sink);
+                    }
+                    if (height[u] >= 2 * n)
+                        break;
+                    continue;
+                }
+                int v = arcHead[a];
+                if (residual[a] > 0 && height[u] == height[v] + 1) {
+                    double push = Math.min(excess[u], residual[a]);
+                    residual[a] -= push;
+                    residual[mate[a]] += push;
+                    excess[u] -= push;
+                    excess[v] += push;
+                    if (v != sink && v != source && !queued[v]) {
+                        queued[v] = true;
+                        queue[(head + size++) % n] = v;
+                    }
+                } else {
+                    current[u]++;
+                }
+            }
+        }
+        return finish(sink);
+    }
+
+    /**
+     * Computes a maximum flow with Dinic's algorithm
+     *
+     * @param source Dense index of the source
+     * @param sink   Dense index of the sink
+     * @return Returns the value of the flow, 0 if source and sink are the same
+     *         or either isn't a node of the network, in which case nothing
+     *         (not even the last flow and cut) is changed
+     */
+    public double dinic(int source, int sink) {
+        if (source < 0 || source >= n || sink < 0 || sink >= n)
+            return 0;
+        start(source);
+        if (source == sink)
+            return finish(sink);
+
+        // height[] holds the BFS level here
+        while (levels(source, sink)) {
+            for (int u = 0; u < n; u++) {
+                current[u] = arcStart[u];
+            }
+            int depth = 0;
+            int u = source;
+            while (true) {
+                if (u == sink) {
+                    // augment by the bottleneck, then back up to the tail of the
+                    // first arc it saturated
+                    double push = Double.POSITIVE_INFINITY;
+                    for (int k = 0; k < depth; k++) {
+                        push = Math.min(push, residual[path[k]]);
+                    }
+                    int back = -1;
+                    for (int k = 0; k < depth; k++) {
+                        int a = path[k];
+                        residual[a] -= push;
+                        residual[mate[a]] += push;
+                        if (back < 0 && residual[a] <= 0)
+                            back = k;
+                    }
+                    excess[sink] += push;
+                    excess[source] -= push;
+                    depth = back;
+                    u = (depth == 0) ? source : arcHead[path[depth - 1]];
+                    continue;
+                }
+                int a = current[u];
+                int end = arcStart[u + 1];
+                while (a < end && (residual[a] <= 0 || height[arcHead[a]] != height[u] + 1)) {
+                    a++;
+                }
+                current[u] = a;
+                if (a < end) {
+                    path[depth++] = a;
+                    u = arcHead[a];
+                    continue;
+                }
+                // dead end, nothing more gets through u this phase
+                if (u == source)
+                    break;
+                height[u] = -1;
+                depth--;
+                u = (depth == 0) ? source : arcHead[path[depth - 1]];
+                current[u]++;
+            }
+        }
+        return finish(sink);
+    }
+
+    /**
+     * Changes the capacity of an edge for the next query, the topology stays
+     * the same
+     *
+     * @param edge     Position of the edge in the snapshot
+     * @param capacity New capacity, negative counts as 0
+     */
+    public void setCapacity(int edge, double capacity) {
+        this.capacity[edgeArc[edge]] = Math.max(0, capacity);
+    }
+
+    /**
+     * @param edge Position of the edge in the snapshot
+     * @return Returns the capacity of the edge
+     */
+    public double getCapacity(int edge) {
+        return capacity[edgeArc[edge]];
+    }
+
+    /**
+     * @param edge Position of the edge in the snapshot
+     * @return Returns the flow the last query sent along the edge
+     */
+    public double flow(int edge) {
+        int a = edgeArc[edge];
+        return capacity[a] - residual[a];
+    }
+
+    /**
+     * @return Returns the value of the last query's flow
+     */
+    public double getFlow() {
+        return flow;
+    }
+
+    /**
+     * The array itself, not a copy, overwritten by the next query
+     *
+     * @return Returns which nodes are on the source side of a minimum cut: the
+     *         ones the source can still reach in the residual graph
+     */
+    public boolean[] minCut() {
+        return sourceSide;
+    }
+
+    /**
+     * @param index Dense index of the node
+     * @return Returns true if the node is on the source side of the minimum cut
+     */
+    public boolean inSourceSide(int index) {
+        return sourceSide[index];
+    }
+
+    /**
+     * @return Returns the positions of the edges that cross the minimum cut,
+     *         their capacities add up to the flow
+     */
+    public int[] getCutEdges() {
+        int count = 0;
+        for (int u = 0; u < n; u++) {
+            for (int e = graph.edgeStart(u); e < graph.edgeEnd(u); e++) {
+                if (crosses(u, e))
+                    count++;
+            }
+        }
+        int[] res = new int[count];
+        count = 0;
+        for (int u = 0; u < n; u++) {
+            for (int e = graph.edgeStart(u); e < graph.edgeEnd(u); e++) {
+                if (crosses(u, e))
+                    res[count++] = e;
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Resets the residual graph and every node buffer
+     */
+    private void start(int source) {
+        this.source = source;
+        for (int a = 0; a < residual.length; a++) {
+            residual[a] = capacity[a];
+        }
+        Arrays.fill(excess, 0);
+        Arrays.fill(queued, false);
+        Arrays.fill(height, 0);
+        for (int u = 0; u < n; u++) {
+            current[u] = arcStart[u];
+        }
+    }
+
+    /**
+     * Records the flow and finds the cut
+     */
+    private double finish(int sink) {
+        flow = (source == sink) ? 0 : excess[sink];
+        Arrays.fill(sourceSide, false);
+        sourceSide[source] = true;
+        queue[0] = source;
+        int size = 1;
+        for (int head = 0; head < size; head++) {
+            int u = queue[head];
+            for (int a = arcStart[u]; a < arcStart[u + 1]; a++) {
+                int v = arcHead[a];
+                if (residual[a] > 0 && !sourceSide[v]) {
+                    sourceSide[v] = true;
+                    queue[size++] = v;
+                }
+            }
+        }
+        return flow;
+    }
+
+    private boolean crosses(int u, int e) {
+        return sourceSide[u] && !sourceSide[graph.edgeTarget(e)] && capacity[edgeArc[e]] > 0;
+    }
+
+    /**
+     * Lifts u just above its lowest residual neighbor, then applies the gap
+     * heuristic if that left its old height empty
+     */
+    private void relabel(int u) {
+        int old = height[u];
+        int lowest = 2 * n;
+        for (int a = arcStart[u]; a < arcStart[u + 1]; a++) {
+            if (residual[a] > 0 && height[arcHead[a]] < lowest)
+                lowest = height[arcHead[a]];
+        }
+        heightCount[old]--;
+        height[u] = Math.min(lowest + 1, 2 * n);
+        heightCount[height[u]]++;
+        current[u] = arcStart[u];
+
+        if (old < n && heightCount[old] == 0) {
+            // nothing at old anymore, so nothing above it can reach the sink
+            for (int v = 0; v < n; v++) {
+                if (height[v] > old && height[v] < n) {
+                    heightCount[height[v]]--;
+                    height[v] = n + 1;
+                    heightCount[n + 1]++;
+                    current[v] = arcStart[v];
+                }
+            }
+        }
+    }
+
+    /**
+     * Sets every height to the exact residual distance to the sink, or n plus
+     * the distance to the source for nodes that can't reach the sink anymore
+     */
+    private void globalRelabel(int source, int sink) {
+        Arrays.fill(height, 2 * n);
+        Arrays.fill(heightCount, 0);
+        int[] bfs = path;
+        height[sink] = 0;
+        bfs[0] = sink;
+        int size = 1;
+        for (int head = 0; head < size; head++) {
+            int v = bfs[head];
+            // u can push to v if the arc u -> v, the mate of v -> u, has room
+            for (int a = arcStart[v]; a < arcStart[v + 1]; a++) {
+                int u = arcHead[a];
+                if (height[u] == 2 * n && u != source && residual[mate[a]] > 0) {
+                    height[u] = height[v] + 1;
+                    bfs[size++] = u;
+                }
+            }
+        }
+        height[source] = n;
+        bfs[0] = source;
+        size = 1;
+        for (int head = 0; head < size; head++) {
+            int v = bfs[head];
+            for (int a = arcStart[v]; a < arcStart[v + 1]; a++) {
+                int u = arcHead[a];
+                if (height[u] == 2 * n && residual[mate[a]] > 0) {
+                    height[u] = height[v] + 1;
+                    bfs[size++] = u;
+                }
+            }
+        }
+        for (int u = 0; u < n; u++) {
+            heightCount[height[u]]++;
+            current[u] = arcStart[u];
+        }
+    }
+
+    /**
+     * BFS levels from the source over arcs with room left
+     *
+     * @return Returns true if the sink can still be reached
+     */
+    private boolean levels(int source, int sink) {
+        Arrays.fill(height, -1);
+        height[source] = 0;
+        queue[0] = source;
+        int size = 1;
+        for (int head = 0; head < size; head++) {
+            int u = queue[head];
+            for (int a = arcStart[u]; a < arcStart[u + 1]; a++) {
+                int v = arcHead[a];
+                if (residual[a] > 0 && height[v] < 0) {
+                    height[v] = height[u] + 1;
+                    queue[size++] = v;
+                }
+            }
+        }
+        return height[sink] >= 0;
+    }
+
+}
@@ -1,7 +1,11 @@
 import java.awt.Point;
+import java.awt.Rectangle;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * @author Milian Ingco
@@ -21,22 +25,63 @@ import java.util.List;
  *        - public Node<T> removeNode(Node<T> node)
  *        - public Node<T> getNode(Point p)
  *        - public Node<T> getNode(int x, int y)
+ *        - public Node<T> getNodeById(int id)
+ *        - public List<Node<T>> getNearestNodes(Point p, int k)
+ *        - public List<Node<T>> getNodes(Rectangle rect)
+ *        - public List<Node<T>> getNodes(Point p, double radius)
  *        - public Node<T> getNeighbors(Node<T> node)
+ *        - public Node<T> getNeighbors(int id)
+ *        - public List<Node<T>> getInNeighbors(Node<T> node)
+ *        - public int inDegree(Node<T> node)
  *        - public boolean addEdge(Node<T> nodeOne, Node<T> nodeTwo)
+ *        - public boolean addEdge(int idOne, int idTwo)
+ *        - public boolean addEdge(int idOne, int idTwo, double weight)
+ *        - public int addEdgeId(Node<T> nodeOne, Node<T> nodeTwo)
+ *        - public int addEdgeId(Node<T> nodeOne, Node<T> nodeTwo, double weight)
+ *        - public Edge<T> getEdge(int edgeId)
+ *        - public int edgeExists(Node<T> nodeOne, Node<T> nodeTwo)
+ *        - public int edgeExists(int idOne, int idTwo)
  *        - public boolean removeEdge(Node<T> nodeOne, Node<T> nodeTwo)
+ *        - public boolean removeEdge(int edgeId)
+ *        - public double getWeight(Node<T> nodeOne, Node<T> nodeTwo)
+ *        - public AllPairs<T> allPairs()
+ *        - public Triangles<T> triangles()
+ *        - public int[] minimumSpanningForest()
+ *        - public CSRGraph<T> freeze()
+ *        - public boolean save(Path file)
+ *        - void bulkLoad(...) (used by GraphBuilder)
+ *        - public Components<T> getComponents()
+ *        - public GraphLog getLog()
+ *        - public void setSlotReuse(boolean reuseSlots)
+ *        - public void setWeightedMatrix(boolean weightedMatrix)
+ *        - public void setLogLevel(GraphLog.Level level)
  *        - public void setType(int graphType)
  * 
  *        root head tail etc
  * 
  *        Notes:
- *        - Weighted graphs ~can~ use adjacency matrix, however it won't be able
- *        to be used to retrieve the weight of a specific edge.
+ *        - Weights live in the adjacency list. With setWeightedMatrix() on, a
+ *        weighted graph keeps them in the adjacency matrix too (the smallest of
+ *        any parallel edges per cell) for allPairs() and getWeight() to read,
+ *        at 8 bytes per cell. Off (the default), allPairs() lays them out from
+ *        the list for each run
  *        - AddEdge() unweighted can be heavily improved upon
+ *        - Operations are logged as event codes with primitive args into a
+ *        bounded ring buffer (GraphLog). Reads log at DEBUG which is off by
+ *        default, so getNode() and getNeighbors() don't pay for logging
+ *        - Every node gets a dense int id when it's added. Ids are stable while
+ *        the node is in the graph and get reused after it's removed, so
+ *        AdjMat and AdjList index arrays with them instead of hashing nodes
+ *        - Edges get ids the same way (addEdgeId()), so one of several parallel
+ *        edges can be removed without searching for it. An undirected edge is
+ *        stored once per direction but both share the id, a self loop is only
+ *        stored once
  * 
  *        Thoughts:
- *        - its not really worth creating a spatial partitioning system
- *        considering the most you'll have to loop over to find some nodes is
- *        trivial
+ *        - turns out it is worth having a spatial partitioning system once
+ *        there are a few hundred thousand nodes, positions are kept in a
+ *        uniform grid (SpatialGrid) so getNode(Point) doesn't loop over
+ *        everything
  *        - why aren't there optional parameters D:
  */
 public class Graph<T> {
@@ -57,10 +102,28 @@ public class Graph<T> {
     private final int graphType;
     private AdjMat<T> am;
     private AdjList<T> al;
+    // whether am keeps weights, only ever true for weighted graphs
+    private boolean weightedMatrix;
     private NamingFunction<T> naming_f;
     private T baseValue;
 
-    private ArrayList<String> logs;
+    private static final int GRID_CELL_SIZE = 64;
+    private SpatialGrid<T> grid;
+
+    private ArrayList<Node<T>> lookNode;
+    private int[] freeIds;
+    private int freeCount;
+
+    // edge ids work like node ids, both directions of an undirected edge share one
+    private ArrayList<Edge<T>> edgeById;
+    private int[] freeEdgeIds;
+    private int freeEdgeCount;
+
+    // null until someone asks for it
+    private Components<T> components;
+
+    private static final int LOG_CAPACITY = 1024;
+    private GraphLog log;
 
     public Graph(int graphType, T baseValue, NamingFunction<T> naming_f) {
         // graph type contradiction handling?
@@ -68,14 +131,15 @@ public class Graph<T> {
         this.graphType = graphType;
         this.baseValue = baseValue;
         this.naming_f = naming_f;
-        am = new AdjMat<>();
+        am = new AdjMat<>((graphType & 4) == 0);
         al = new AdjList<>();
-        logs = new ArrayList<>() {
-            {
-                String str = 1 + ": Created Graph with base value: " + baseValue + " and type: " + graphType;
-                add(str);
-            }
-        };
+        grid = new SpatialGrid<>(GRID_CELL_SIZE);
+        lookNode = new ArrayList<>();
+        freeIds = new int[0];
+        edgeById = new ArrayList<>();
+        freeEdgeIds = new int[0];
+        log = new GraphLog(LOG_CAPACITY, GraphLog.Level.INFO);
+        log.record(GraphLog.Event.CREATED, graphType);
 
     }
 
@@ -87,15 +151,22 @@ public class Graph<T> {
      */
     public void addNode(Point p, T val) {
         Node<T> temp = new Node(val, p);
-        if (am.addNode(temp)) {
-            logs.add(logs.size() + ": Added node to Adjacency Matrix: " + temp);
-        } else {
-            logs.add(logs.size() + ": Failed to add node to Adjacency Matrix: " + temp);
+        temp.setId(nextId());
+        lookNode.set(temp.getId(), temp);
+        boolean added = true;
+        if (!am.addNode(temp)) {
+            log.record(GraphLog.Event.ADD_NODE_MATRIX_FAILED, temp.getId());
+            added = false;
         }
-        if (al.addNode(temp)) {
-            logs.add(logs.size() + ": Added node to Adjacency List: " + temp);
-        } else {
-            logs.add(logs.size() + ": Failed to add node to Adjacency List: " + temp);
+        if (!al.addNode(temp)) {
+            log.record(GraphLog.Event.ADD_NODE_LIST_FAILED, temp.getId());
+            added = false;
+        }
+        if (added) {
+            grid.add(temp);
+            if (components != null)
+                components.nodeAdded(temp.getId());
+            log.record(GraphLog.Event.ADD_NODE, temp.getId());
         }
     }
 
@@ -140,28 +211,39 @@ public class Graph<T> {
      *         were removed
      */
     public Node<T> removeNode(Node<T> node) {
+        // the edge lists stay readable after the node is gone, used to free the
+        // ids of its edges below
+        List<Pair<Node<T>, Double>> out = al.getEdges(node);
+        List<Edge<T>> in = al.getInEdges(node);
         Node<T> amRemove = am.removeNode(node);
         Node<T> alRemove = al.removeNode(node);
         if (amRemove == null) {
-            logs.add(logs.size() + ": !!FAILED!! to remove node: " + node + " from adjacency matrix");
+            log.record(GraphLog.Event.REMOVE_NODE_MATRIX_FAILED, node.getId());
             return null;
-        } else {
-            logs.add(logs.size() + ":  REMOVED node: " + node + " from adjacency matrix");
         }
         if (alRemove == null) {
-            logs.add(logs.size() + ": !!FAILED!! to remove node: " + node + " from adjacency list");
+            log.record(GraphLog.Event.REMOVE_NODE_LIST_FAILED, node.getId());
             return null;
-        } else {
-            logs.add(logs.size() + ":  REMOVED node: " + node + " from adjacency list");
         }
 
         if (alRemove.equals(amRemove)) {
-            logs.add(logs.size() + ": REMOVED node: " + node + " from both successfully");
+            log.record(GraphLog.Event.REMOVE_NODE, node.getId());
+            grid.remove(node);
+            if (components != null)
+                components.invalidate();
+            for (Pair<Node<T>, Double> edge : out) {
+                if (((Edge<T>) edge).id >= 0)
+                    freeEdge((Edge<T>) edge);
+            }
+            for (Edge<T> edge : in) {
+                if (edge.id >= 0)
+                    freeEdge(edge);
+            }
+            freeId(node.getId());
             return alRemove;
         } else {
-            logs.add(logs.size()
-                    + ": !!FAILED!! Different nodes were removed. AdjacencyMatrix Node: " + amRemove
-                    + "| AdjacencyList Node: " + alRemove + " (or... they didnt refer to the same object idk)");
+            // (or... they didnt refer to the same object idk)
+            log.record(GraphLog.Event.REMOVE_NODE_MISMATCH, amRemove.getId(), alRemove.getId());
             return null;
         }
     }
@@ -174,22 +256,12 @@ public class Graph<T> {
      *         empty
      */
     public Node<T> getNode(Point p) {
-        double minDistance = Double.MAX_VALUE;
-        Node<T> closestNode = null;
-        ArrayList<Node<T>> nodes = am.getAllNodes();
-        if (nodes.size() < 1) {
-            logs.add(logs.size() + ": Graph has no nodes and cannot return any nodes");
+        Node<T> closestNode = grid.nearest(p);
+        if (closestNode == null) {
+            log.record(GraphLog.Event.GET_NODE_EMPTY);
             return null;
         }
-        for (Node<T> node : nodes) {
-            double distance = node.getPos().distanceSq(p);
-            if (distance < minDistance) {
-                minDistance = distance;
-                closestNode = node;
-            }
-        }
-        logs.add(logs.size() + ": Returned closest node to point: (" + p.getX() + ", " + p.getY() + "). Node returned: "
-                + closestNode);
+        log.record(GraphLog.Event.GET_NODE, p.x, p.y, closestNode.getId(), 0.0);
         return closestNode;
     }
 
@@ -205,6 +277,50 @@ public class Graph<T> {
         return getNode(new Point(x, y));
     }
 
+    /**
+     * Gets the k closest nodes to a given point
+     * 
+     * @param p Point you want to search from
+     * @param k Number of nodes wanted
+     * @return Returns up to k nodes, closest first
+     */
+    public List<Node<T>> getNearestNodes(Point p, int k) {
+        return grid.nearest(p, k);
+    }
+
+    /**
+     * Gets every node inside a rectangle
+     * 
+     * @param rect Area to search
+     * @return Returns the nodes positioned inside the rectangle
+     */
+    public List<Node<T>> getNodes(Rectangle rect) {
+        return grid.inRect(rect);
+    }
+
+    /**
+     * Gets every node within a distance of a point
+     * 
+     * @param p      Center of the search
+     * @param radius Maximum distance from p
+     * @return Returns the nodes at most radius away from p
+     */
+    public List<Node<T>> getNodes(Point p, double radius) {
+        return grid.inRadius(p, radius);
+    }
+
+    /**
+     * Gets a node by its id
+     * 
+     * @param id Id of the node
+     * @return Returns the node with that id, or null if no node has it
+     */
+    public Node<T> getNodeById(int id) {
+        if (id < 0 || id >= lookNode.size())
+            return null;
+        return lookNode.get(id);
+    }
+
     /**
      * Gets all nodes connected to a given node
      * 
@@ -213,10 +329,71 @@ public class Graph<T> {
      *         or null if the given node doesn't exist or has no edges
      */
     public List<Node<T>> getNeighbors(Node<T> node) {
-        logs.add(logs.size() + ": Returned list of neighbor nodes of node: " + node);
+        if (node == null)
+            return null;
+        log.record(GraphLog.Event.GET_NEIGHBORS, node.getId());
         return al.getNeighbors(node);
     }
 
+    /**
+     * Gets all nodes connected to a given node by id
+     * 
+     * @param id Id of the source node
+     * @return Returns List<Node<T>> of nodes with a connection to the given node,
+     *         or null if no node has that id
+     */
+    public List<Node<T>> getNeighbors(int id) {
+        Node<T> node = getNodeById(id);
+        if (node == null)
+            return null;
+        return getNeighbors(node);
+    }
+
+    /**
+     * Gets all nodes with an edge pointing to a given node
+     * 
+     * @param node The target node
+     * @return Returns the SOURCE nodes of every edge into the node, or null if
+     *         the node doesn't exist
+     */
+    public List<Node<T>> getInNeighbors(Node<T> node) {
+        if (node == null)
+            return null;
+        log.record(GraphLog.Event.GET_NEIGHBORS, node.getId());
+        return al.getInNeighbors(node);
+    }
+
+    /**
+     * @param node Node to be checked
+     * @return Returns the number of edges pointing to the node, -1 if the node
+     *         doesn't exist
+     */
+    public int inDegree(Node<T> node) {
+        return al.inDegree(node);
+    }
+
+    /**
+     * Checks how many directed edges go from one node to another
+     * 
+     * @param nodeOne The SOURCE node
+     * @param nodeTwo The TARGET node
+     * @return Returns the number of edges, -1 if either node doesn't exist
+     */
+    public int edgeExists(Node<T> nodeOne, Node<T> nodeTwo) {
+        return am.edgeExists(nodeOne, nodeTwo);
+    }
+
+    /**
+     * Checks how many directed edges go from one node to another by id
+     * 
+     * @param idOne Id of the SOURCE node
+     * @param idTwo Id of the TARGET node
+     * @return Returns the number of edges, -1 if either id doesn't exist
+     */
+    public int edgeExists(int idOne, int idTwo) {
+        return am.edgeExists(idOne, idTwo);
+    }
+
     /**
      * Adds an unweighted edge between two nodes. Automatically handles other graph
      * type cases
@@ -227,125 +404,502 @@ public class Graph<T> {
      *         doesn't exist, creation contradicts graph type, or failed to be added
      */
     public boolean addEdge(Node<T> nodeOne, Node<T> nodeTwo) {
+        return addEdgeId(nodeOne, nodeTwo) >= 0;
+    }
+
+    /**
+     * Adds a weighted edge between two nodes. Automatically handles other graph
+     * type cases
+     * 
+     * @param nodeOne The SOURCE node
+     * @param nodeTwo The TARGET node
+     * @param weight  The weight of the edge
+     * @return Returns true if the edge was successfully added, false if either node
+     *         doesn't exist, creation contradicts graph types, or failed to be
+     *         added
+     */
+    public boolean addEdge(Node<T> nodeOne, Node<T> nodeTwo, double weight) {
+        return addEdgeId(nodeOne, nodeTwo, weight) >= 0;
+    }
+
+    /**
+     * Adds an unweighted edge between two nodes and hands back its id, which
+     * stays valid until the edge is removed. Use it with getEdge() and
+     * removeEdge(int) to get at one specific edge out of parallel ones
+     * 
+     * @param nodeOne The SOURCE node
+     * @param nodeTwo The TARGET node
+     * @return Returns the id of the new edge, -1 if it couldn't be added (same
+     *         reasons as addEdge())
+     */
+    public int addEdgeId(Node<T> nodeOne, Node<T> nodeTwo) {
         // Check if wrong addEdge() function was called
         if ((graphType & 2) > 0) {
-            logs.add(logs.size() + ": !!FAILED!! to add edge because wrong addEdge() function was called on Node1: "
-                    + nodeOne + " and Node2: " + nodeTwo);
-            return false;
+            log.record(GraphLog.Event.ADD_EDGE_WRONG_FUNCTION, nodeOne.getId(), nodeTwo.getId());
+            return -1;
         }
+        return connect(nodeOne, nodeTwo, 1.0, false);
+    }
 
+    /**
+     * Adds a weighted edge between two nodes and hands back its id, which stays
+     * valid until the edge is removed
+     * 
+     * @param nodeOne The SOURCE node
+     * @param nodeTwo The TARGET node
+     * @param weight  The weight of the edge
+     * @return Returns the id of the new edge, -1 if it couldn't be added (same
+     *         reasons as addEdge())
+     */
+    public int addEdgeId(Node<T> nodeOne, Node<T> nodeTwo, double weight) {
+        // Check if wrong addEdge() function was called
+        if ((graphType & 2) == 0) {
+            log.record(GraphLog.Event.ADD_EDGE_WRONG_FUNCTION, nodeOne.getId(), nodeTwo.getId());
+            return -1;
+        }
+        return connect(nodeOne, nodeTwo, weight, true);
+    }
+
+    /**
+     * Adds an edge to the matrix and the list (both directions if undirected)
+     * and gives it an id. Unweighted edges are stored with weight 1.0 like
+     * before
+     * 
+     * @return Returns the id of the new edge, -1 if it couldn't be added
+     */
+    private int connect(Node<T> nodeOne, Node<T> nodeTwo, double weight, boolean weighted) {
         // if graphType isn't nonmulti, skips this check
         // Cannot create multiple edges from one to two
         // Don't need to check two to one because if it's undirected & two to one
         // exists, so does one to two
         if ((graphType & 4) == 0 && am.edgeExists(nodeOne, nodeTwo) > 0) {
-            logs.add(logs.size()
-                    + ": !!FAILED!! to add edge because an edge already exists and graph type is nonmulti. Node1: "
-                    + nodeOne + ", Node2: " + nodeTwo);
-            return false;
+            log.record(GraphLog.Event.ADD_EDGE_EXISTS, nodeOne.getId(), nodeTwo.getId());
+            return -1;
         }
 
-        // Add edge in one direction regardless of type, no worries about weighted
-        if (!am.addEdge(nodeOne, nodeTwo)) {
-            logs.add(logs.size() + ": !!FAILED!! to add edge to adjacency matrix with node1: " + nodeOne + " node2: "
-                    + nodeTwo);
-            return false;
+        // Add edge in one direction regardless of type, the matrix keeps the
+        // weight too if it has a weight matrix
+        if (!am.addEdge(nodeOne, nodeTwo, weight)) {
+            log.record(GraphLog.Event.ADD_EDGE_MATRIX_FAILED, nodeOne.getId(), nodeTwo.getId());
+            return -1;
         }
 
-        if (!al.addEdge(nodeOne, nodeTwo)) {
-            logs.add(logs.size() + ": !!FAILED!! to add edge to adjacency list with node1: " + nodeOne + " node2: "
-                    + nodeTwo);
-            return false;
+        Edge<T> edge = al.link(nodeOne, nodeTwo, weight);
+        if (edge == null) {
+            am.removeEdge(nodeOne, nodeTwo);
+            log.record(GraphLog.Event.ADD_EDGE_LIST_FAILED, nodeOne.getId(), nodeTwo.getId());
+            return -1;
         }
 
-        // if undirected, add the other direction
-        if ((graphType & 1) == 0) {
-            if (!am.addEdge(nodeTwo, nodeOne)) {
-                logs.add(
-                        logs.size() + ": !!FAILED!! to add edge to adjacency matrix with node1: " + nodeTwo + " node2: "
-                                + nodeOne + " UNDIRECTED EDGE ADD");
-                return false;
-            }
-            if (!al.addEdge(nodeTwo, nodeOne)) {
-                logs.add(
-                        logs.size() + ": !!FAILED!! to add edge to adjacency list with node1: " + nodeTwo + " node2: "
-                                + nodeOne + " UNDIRECTED EDGE ADD");
-                return false;
-            }
+        // if undirected, add the other direction. A self loop is only stored
+        // once, there is no other direction
+        if ((graphType & 1) == 0 && nodeOne != nodeTwo) {
+            // UNDIRECTED EDGE ADD
+            am.addEdge(nodeTwo, nodeOne, weight);
+            Edge<T> twin = al.link(nodeTwo, nodeOne, weight);
+            edge.twin = twin;
+            twin.twin = edge;
         }
 
-        logs.add(logs.size() + ": Added edge with nodes node1: " + nodeOne + " node2: " + nodeTwo);
-
-        return true;
+        int id = registerEdge(edge);
+        if (components != null)
+            components.edgeAdded(nodeOne.getId(), nodeTwo.getId());
+        if (weighted)
+            log.record(GraphLog.Event.ADD_WEIGHTED_EDGE, nodeOne.getId(), nodeTwo.getId(), id, weight);
+        else
+            log.record(GraphLog.Event.ADD_EDGE, nodeOne.getId(), nodeTwo.getId(), id, 0);
+        return id;
     }
 
     /**
-     * Adds a weighted edge between two nodes. Automatically handles other graph
-     * type cases
+     * Adds an unweighted edge between two nodes by id
      * 
-     * @param nodeOne The SOURCE node
-     * @param nodeTwo The TARGET node
-     * @param weight  The weight of the edge
-     * @return Returns true if the edge was successfully added, false if either node
-     *         doesn't exist, creation contradicts graph types, or failed to be
-     *         added
+     * @param idOne Id of the SOURCE node
+     * @param idTwo Id of the TARGET node
+     * @return Returns true if the edge was successfully added, false if either id
+     *         doesn't exist or addEdge(Node<T>, Node<T>) fails
      */
-    public boolean addEdge(Node<T> nodeOne, Node<T> nodeTwo, double weight) {
-        // Check if wrong addEdge() function was called
-        if ((graphType & 2) == 0) {
-            logs.add(logs.size() + ": !!FAILED!! to add edge because wrong addEdge() function was called on Node1: "
-                    + nodeOne + " and Node2: " + nodeTwo);
+    public boolean addEdge(int idOne, int idTwo) {
+        Node<T> nodeOne = getNodeById(idOne);
+        Node<T> nodeTwo = getNodeById(idTwo);
+        if (nodeOne == null || nodeTwo == null) {
+            log.record(GraphLog.Event.ADD_EDGE_MISSING_ID, idOne, idTwo);
             return false;
         }
+        return addEdge(nodeOne, nodeTwo);
+    }
 
-        // if graphType isn't nonmulti, skips this check
-        // Cannot create multiple edges from one to two
-        // Don't need to check two to one because if it's undirected & two to one
-        // exists, so does one to two
-        if ((graphType & 4) == 0 && am.edgeExists(nodeOne, nodeTwo) > 0) {
-            logs.add(logs.size()
-                    + ": !!FAILED!! to add edge because an edge already exists and graph type is nonmulti. Node1: "
-                    + nodeOne + ", Node2: " + nodeTwo);
+    /**
+     * Adds a weighted edge between two nodes by id
+     * 
+     * @param idOne  Id of the SOURCE node
+     * @param idTwo  Id of the TARGET node
+     * @param weight The weight of the edge
+     * @return Returns true if the edge was successfully added, false if either id
+     *         doesn't exist or addEdge(Node<T>, Node<T>, double) fails
+     */
+    public boolean addEdge(int idOne, int idTwo, double weight) {
+        Node<T> nodeOne = getNodeById(idOne);
+        Node<T> nodeTwo = getNodeById(idTwo);
+        if (nodeOne == null || nodeTwo == null) {
+            log.record(GraphLog.Event.ADD_EDGE_MISSING_ID, idOne, idTwo);
             return false;
         }
+        return addEdge(nodeOne, nodeTwo, weight);
+    }
 
-        // Add edge in one direction regardless of type, no worries about weighted since
-        // matrix doesn't hold weighted info
-        if (!am.addEdge(nodeOne, nodeTwo)) {
-            logs.add(logs.size() + ": !!FAILED!! to add edge to adjacency matrix with node1: " + nodeOne + " node2: "
-                    + nodeTwo);
+    /**
+     * Removes an edge between two nodes, the first one found if there are
+     * parallel edges. Use removeEdge(int) to pick a specific one
+     * 
+     * @param nodeOne The SOURCE node
+     * @param nodeTwo The TARGET node
+     * @return Returns true if the edge was removed, false if either node or the
+     *         edge doesn't exist
+     */
+    public boolean removeEdge(Node<T> nodeOne, Node<T> nodeTwo) {
+        Edge<T> edge = al.findEdge(nodeOne, nodeTwo);
+        if (edge == null) {
+            log.record(GraphLog.Event.REMOVE_EDGE_MISSING, nodeOne.getId(), nodeTwo.getId());
             return false;
         }
+        return removeEdge(edge.id);
+    }
 
-        if (!al.addEdge(nodeOne, nodeTwo, weight)) {
-            logs.add(logs.size() + ": !!FAILED!! to add edge to adjacency list with node1: " + nodeOne + " node2: "
-                    + nodeTwo);
+    /**
+     * Removes a specific edge in O(1). For undirected graphs both directions go
+     * 
+     * @param edgeId Id from addEdgeId() or Edge.getId()
+     * @return Returns true if the edge was removed, false if no edge has that id
+     */
+    public boolean removeEdge(int edgeId) {
+        Edge<T> edge = getEdge(edgeId);
+        if (edge == null) {
+            log.record(GraphLog.Event.REMOVE_EDGE_FAILED, edgeId);
             return false;
         }
 
-        // if undirected, add the other direction
-        if ((graphType & 1) == 0) {
-            if (!am.addEdge(nodeTwo, nodeOne)) {
-                logs.add(
-                        logs.size() + ": !!FAILED!! to add edge to adjacency matrix with node1: " + nodeTwo + " node2: "
-                                + nodeOne + " UNDIRECTED EDGE ADD");
-                return false;
+        al.removeEdge(edge);
+        am.removeEdge(edge.source, edge.one);
+        unlinkWeight(edge);
+        if (edge.twin != null) {
+            al.removeEdge(edge.twin);
+            am.removeEdge(edge.twin.source, edge.twin.one);
+            unlinkWeight(edge.twin);
+        }
+        if (components != null)
+            components.invalidate();
+        log.record(GraphLog.Event.REMOVE_EDGE, edge.source.getId(), edge.one.getId(), edgeId, 0);
+        freeEdge(edge);
+        return true;
+    }
+
+    /**
+     * Gets the weight of the edge between two nodes
+     * 
+     * @param nodeOne The SOURCE node
+     * @param nodeTwo The TARGET node
+     * @return Returns the weight (the smallest one if there are parallel edges,
+     *         1.0 if the graph isn't weighted), infinity if there is no edge
+     */
+    public double getWeight(Node<T> nodeOne, Node<T> nodeTwo) {
+        if ((graphType & 2) > 0 && !weightedMatrix)
+            return al.minWeight(nodeOne, nodeTwo);
+        return am.getWeight(nodeOne, nodeTwo);
+    }
+
+    /**
+     * Computes shortest distances and next hops between every pair of nodes
+     * from the adjacency matrix, in parallel. O(n^3), see AllPairs
+     * 
+     * @return Returns the distances, unweighted graphs count every edge as 1
+     */
+    public AllPairs<T> allPairs() {
+        if ((graphType & 2) == 0 || weightedMatrix)
+            return am.allPairs(ForkJoinPool.commonPool());
+
+        // no weight matrix, lay the smallest weight of each cell out from the
+        // list for this run only. Nodes go in the matrix's order like above
+        List<Node<T>> nodes = am.getAllNodes();
+        int n = nodes.size();
+        int[] dense = new int[lookNode.size()];
+        for (int i = 0; i < n; i++) {
+            dense[nodes.get(i).getId()] = i;
+        }
+        int stride = AllPairs.stride(n);
+        double[] dist = new double[stride * stride];
+        Arrays.fill(dist, Double.POSITIVE_INFINITY);
+        for (int i = 0; i < n; i++) {
+            int row = i * stride;
+            for (Pair<Node<T>, Double> edge : al.getEdges(nodes.get(i))) {
+                int cell = row + dense[edge.one.getId()];
+                dist[cell] = Math.min(dist[cell], edge.two);
             }
-            if (!al.addEdge(nodeTwo, nodeOne, weight)) {
-                logs.add(
-                        logs.size() + ": !!FAILED!! to add edge to adjacency list with node1: " + nodeTwo + " node2: "
-                                + nodeOne + " UNDIRECTED EDGE ADD");
-                return false;
+        }
+        return new AllPairs<>(nodes, dist, stride, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Counts triangles through every node, in parallel, ignoring direction and
+     * parallel edges. Dense graphs AND the adjacency matrix's bitset rows,
+     * sparse ones merge the sorted rows of a frozen snapshot, see Triangles
+     * 
+     * @return Returns the counts, nodes in the order the chosen structure has
+     *         them (use indexOf())
+     */
+    public Triangles<T> triangles() {
+        long n = al.getSize();
+        long edges = edgeById.size() - freeEdgeCount;
+        // a bitset AND costs n / 64 words per edge, a merge about the average
+        // degree, 2 * edges / n
+        if (edges * 128 >= n * n)
+            return am.triangles(ForkJoinPool.commonPool());
+        return Triangles.count(freeze(), ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Computes a minimum spanning forest, picking the algorithm by size and
+     * density, see MST. Directed edges count both ways
+     * 
+     * @return Returns the ids of the forest's edges (see getEdge()), one tree
+     *         per connected component
+     */
+    public int[] minimumSpanningForest() {
+        CSRGraph<T> snapshot = freeze();
+        CSRGraph<T> reverse = ((graphType & 1) == 0) ? snapshot : null;
+        return new MST<>(snapshot, reverse, ForkJoinPool.commonPool()).run();
+    }
+
+    /**
+     * Gets an edge by id
+     * 
+     * @param edgeId Id from addEdgeId() or Edge.getId()
+     * @return Returns the edge (the SOURCE to TARGET direction it was added in),
+     *         null if no edge has that id
+     */
+    public Edge<T> getEdge(int edgeId) {
+        if (edgeId < 0 || edgeId >= edgeById.size())
+            return null;
+        return edgeById.get(edgeId);
+    }
+
+    /**
+     * Freezes the graph into an immutable compressed sparse row snapshot. Meant
+     * for graphs that are built once and then traversed a lot
+     * 
+     * @return Returns a CSR snapshot of the adjacency list
+     */
+    public CSRGraph<T> freeze() {
+        log.record(GraphLog.Event.FREEZE, al.getSize());
+        return al.freeze();
+    }
+
+    /**
+     * Writes a frozen copy of the graph to a binary file that MappedGraph.open()
+     * maps back without reading it in
+     * 
+     * @param file File to write, replaced if it exists
+     * @return Returns false if the file couldn't be written
+     */
+    public boolean save(Path file) {
+        return MappedGraph.write(freeze(), graphType, file);
+    }
+
+    /**
+     * Loads a batch of nodes and edges that GraphBuilder already checked against
+     * the graph type. Everything is sized once up front and nothing is logged
+     * per node or edge
+     * 
+     * @param points    Positions of the new nodes
+     * @param values    Values of the new nodes
+     * @param sources   SOURCE of each edge, as an index into points
+     * @param targets   TARGET of each edge, as an index into points
+     * @param weights   Weight of each edge
+     * @param edgeCount Number of edges in the arrays
+     */
+    void bulkLoad(List<Point> points, List<T> values, int[] sources, int[] targets, double[] weights,
+            int edgeCount) {
+        int n = points.size();
+        boolean undirected = (graphType & 1) == 0;
+
+        int[] degree = new int[n];
+        for (int i = 0; i < edgeCount; i++) {
+            degree[sources[i]]++;
+            if (undirected && sources[i] != targets[i])
+                degree[targets[i]]++;
+        }
+
+        am.ensureCapacity(am.getSize() + n);
+        al.ensureCapacity(lookNode.size() + n);
+        edgeById.ensureCapacity(edgeById.size() + edgeCount);
+        lookNode.ensureCapacity(lookNode.size() + n);
+
+        ArrayList<Node<T>> nodes = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            Node<T> node = new Node<>(values.get(i), points.get(i));
+            node.setId(nextId());
+            lookNode.set(node.getId(), node);
+            am.addNode(node);
+            al.addNode(node, degree[i]);
+            grid.add(node);
+            nodes.add(node);
+        }
+
+        for (int i = 0; i < edgeCount; i++) {
+            Node<T> nodeOne = nodes.get(sources[i]);
+            Node<T> nodeTwo = nodes.get(targets[i]);
+            am.addEdge(nodeOne, nodeTwo, weights[i]);
+            Edge<T> edge = al.link(nodeOne, nodeTwo, weights[i]);
+            if (undirected && nodeOne != nodeTwo) {
+                am.addEdge(nodeTwo, nodeOne, weights[i]);
+                edge.twin = al.link(nodeTwo, nodeOne, weights[i]);
+                edge.twin.twin = edge;
             }
+            registerEdge(edge);
         }
 
-        logs.add(logs.size() + ": Added edge with nodes node1: " + nodeOne + " node2: " + nodeTwo + " with weight: "
-                + weight);
-        return true;
+        if (components != null)
+            components.invalidate();
+        log.record(GraphLog.Event.BULK_LOAD, n, edgeCount);
     }
 
-    public boolean removeEdge(Node<T> nodeOne, Node<T> nodeTwo) {
-        return false;
+    /**
+     * Gets the connected components of the graph, which stay up to date as
+     * nodes and edges are added and get recomputed lazily after removals
+     * 
+     * @return Returns the graph's components
+     */
+    public Components<T> getComponents() {
+        if (components == null)
+            components = new Components<>(lookNode, al);
+        return components;
+    }
+
+    /**
+     * @return Returns the graph's event log
+     */
+    public GraphLog getLog() {
+        return log;
+    }
+
+    /**
+     * Sets the most detailed level of events the graph records
+     * 
+     * @param level New level, GraphLog.Level.OFF turns logging off
+     */
+    public void setLogLevel(GraphLog.Level level) {
+        log.setLevel(level);
+    }
+
+    /**
+     * Turns slot reuse on or off in the adjacency matrix. Worth it when nodes
+     * get removed all the time, see AdjMat. With it on, allPairs() lists nodes
+     * in slot order instead of the order they were added
+     * 
+     * @param reuseSlots True to reuse the slots of removed nodes
+     */
+    public void setSlotReuse(boolean reuseSlots) {
+        am.setSlotReuse(reuseSlots);
+    }
+
+    /**
+     * Turns the adjacency matrix's weight matrix on or off for a weighted graph
+     * (does nothing for an unweighted one). On, allPairs() and getWeight() read
+     * weights straight from the matrix, for 8 bytes per cell, worth it when
+     * allPairs() runs over and over. Off, the weights only live in the
+     * adjacency list
+     * 
+     * @param weightedMatrix True to keep a weight per matrix cell
+     */
+    public void setWeightedMatrix(boolean weightedMatrix) {
+        if ((graphType & 2) == 0 || weightedMatrix == this.weightedMatrix)
+            return;
+        am.setWeighted(weightedMatrix);
+        this.weightedMatrix = weightedMatrix;
+        if (!weightedMatrix)
+            return;
+        for (Edge<T> edge : edgeById) {
+            if (edge == null)
+                continue;
+            am.setWeight(edge.source, edge.one, al.minWeight(edge.source, edge.one));
+            if (edge.twin != null)
+                am.setWeight(edge.twin.source, edge.twin.one, al.minWeight(edge.twin.source, edge.twin.one));
+        }
+    }
+
+    /**
+     * Hands out the next id, reusing removed ones first so ids stay dense
+     * 
+     * @return Returns a free id with a slot in lookNode
+     */
+    private int nextId() {
+        if (freeCount > 0)
+            return freeIds[--freeCount];
+        lookNode.add(null);
+        return lookNode.size() - 1;
+    }
+
+    /**
+     * Fixes the matrix weight of a cell after one of its parallel edges left,
+     * in case it was the smallest
+     * 
+     * @param edge Edge that was just removed
+     */
+    private void unlinkWeight(Edge<T> edge) {
+        if ((graphType & 6) != 6 || !weightedMatrix || am.edgeExists(edge.source, edge.one) < 1)
+            return;
+        if (edge.two <= am.getWeight(edge.source, edge.one))
+            am.setWeight(edge.source, edge.one, al.minWeight(edge.source, edge.one));
+    }
+
+    /**
+     * Gives an edge (and its twin) the next edge id, reusing removed ones first
+     * 
+     * @param edge Edge that was just linked
+     * @return Returns the id given to the edge
+     */
+    private int registerEdge(Edge<T> edge) {
+        int id;
+        if (freeEdgeCount > 0) {
+            id = freeEdgeIds[--freeEdgeCount];
+            edgeById.set(id, edge);
+        } else {
+            id = edgeById.size();
+            edgeById.add(edge);
+        }
+        edge.id = id;
+        if (edge.twin != null)
+            edge.twin.id = id;
+        return id;
+    }
+
+    /**
+     * Gives an edge id back once the edge has left the graph
+     * 
+     * @param edge Edge that was removed
+     */
+    private void freeEdge(Edge<T> edge) {
+        int id = edge.id;
+        edgeById.set(id, null);
+        edge.id = -1;
+        if (edge.twin != null)
+            edge.twin.id = -1;
+        if (freeEdgeCount == freeEdgeIds.length)
+            freeEdgeIds = Arrays.copyOf(freeEdgeIds, Math.max(4, freeEdgeCount * 2));
+        freeEdgeIds[freeEdgeCount++] = id;
+    }
+
+    /**
+     * Gives an id back once its node has left the graph
+     * 
+     * @param id Id to be freed
+     */
+    private void freeId(int id) {
+        lookNode.get(id).setId(-1);
+        lookNode.set(id, null);
+        if (freeCount == freeIds.length)
+            freeIds = Arrays.copyOf(freeIds, Math.max(4, freeCount * 2));
+        freeIds[freeCount++] = id;
     }
 
 }
@@ -0,0 +1,238 @@
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Builds a whole Graph in one go
+ *
+ * Nodes and edges are collected into plain arrays first (edges are pairs of
+ * node indices, the order nodes were added in). build() then checks the graph
+ * type rules for every edge in one pass and loads everything into a new Graph
+ * with the adjacency matrix and list sized once, instead of going through
+ * addNode() and addEdge() for each one
+ *
+ * Member Methods:
+ * - expectNodes(int nodes)
+ * - expectEdges(int edges)
+ * - addNode(Point p)
+ * - addNode(Point p, T val)
+ * - addNode(int x, int y)
+ * - addEdge(int indexOne, int indexTwo)
+ * - addEdge(int indexOne, int indexTwo, double weight)
+ * - addEdges(int[] sources, int[] targets)
+ * - addEdges(int[] sources, int[] targets, double[] weights)
+ * - build()
+ *
+ * @version 1.0
+ */
+public class GraphBuilder<T> {
+
+    private final int graphType;
+    private final NamingFunction<T> naming_f;
+    private T baseValue;
+
+    private ArrayList<Point> points;
+    private ArrayList<T> values;
+
+    private int[] sources;
+    private int[] targets;
+    private double[] weights;
+    private int edgeCount;
+    // edges given without / with a weight, only one kind is allowed per graph
+    private int unweightedEdges;
+    private int weightedEdges;
+
+    /**
+     * Creates a builder, arguments are the same as Graph's constructor
+     */
+    public GraphBuilder(int graphType, T baseValue, NamingFunction<T> naming_f) {
+        this.graphType = graphType;
+        this.baseValue = baseValue;
+        this.naming_f = naming_f;
+        points = new ArrayList<>();
+        values = new ArrayList<>();
+        sources = new int[16];
+        targets = new int[16];
+        weights = new double[16];
+    }
+
+    /**
+     * Reserves space for nodes so adding them doesn't resize
+     *
+     * @param nodes Number of nodes expected
+     * @return Returns this builder
+     */
+    public GraphBuilder<T> expectNodes(int nodes) {
+        points.ensureCapacity(nodes);
+        values.ensureCapacity(nodes);
+        return this;
+    }
+
+    /**
+     * Reserves space for edges so adding them doesn't resize
+     *
+     * @param edges Number of edges expected
+     * @return Returns this builder
+     */
+    public GraphBuilder<T> expectEdges(int edges) {
+        grow(edges);
+        return this;
+    }
+
+    /**
+     * Adds a node with a custom value
+     *
+     * @param p   Point node is at on the screen
+     * @param val Value the node displays
+     * @return Returns the index used to refer to the node in addEdge()
+     */
+    public int addNode(Point p, T val) {
+        points.add(p);
+        values.add(val);
+        return points.size() - 1;
+    }
+
+    /**
+     * Adds a node with a value from the naming function
+     *
+     * @param p Point node is at on the screen
+     * @return Returns the index used to refer to the node in addEdge()
+     */
+    public int addNode(Point p) {
+        baseValue = naming_f.apply(baseValue);
+        return addNode(p, baseValue);
+    }
+
+    /**
+     * Adds a node with a value from the naming function
+     *
+     * @param x X value of the node
+     * @param y Y value of the node
+     * @return Returns the index used to refer to the node in addEdge()
+     */
+    public int addNode(int x, int y) {
+        return addNode(new Point(x, y));
+    }
+
+    /**
+     * Adds an unweighted edge, nothing is checked until build()
+     *
+     * @param indexOne Index of the SOURCE node
+     * @param indexTwo Index of the TARGET node
+     * @return Returns this builder
+     */
+    public GraphBuilder<T> addEdge(int indexOne, int indexTwo) {
+        append(indexOne, indexTwo, 1.0);
+        unweightedEdges++;
+        return this;
+    }
+
+    /**
+     * Adds a weighted edge, nothing is checked until build()
+     *
+     * @param indexOne Index of the SOURCE node
+     * @param indexTwo Index of the TARGET node
+     * @param weight   Weight of the edge
+     * @return Returns this builder
+     */
+    public GraphBuilder<T> addEdge(int indexOne, int indexTwo, double weight) {
+        append(indexOne, indexTwo, weight);
+        weightedEdges++;
+        return this;
+    }
+
+    /**
+     * Adds unweighted edges sources[i] -> targets[i]
+     *
+     * @param sources Indices of the SOURCE nodes
+     * @param targets Indices of the TARGET nodes, same length as sources
+     * @return Returns this builder
+     */
+    public GraphBuilder<T> addEdges(int[] sources, int[] targets) {
+        grow(edgeCount + sources.length);
+        for (int i = 0; i < sources.length; i++) {
+            addEdge(sources[i], targets[i]);
+        }
+        return this;
+    }
+
+    /**
+     * Adds weighted edges sources[i] -> targets[i]
+     *
+     * @param sources Indices of the SOURCE nodes
+     * @param targets Indices of the TARGET nodes, same length as sources
+     * @param weights Weights of the edges, same length as sources
+     * @return Returns this builder
+     */
+    public GraphBuilder<T> addEdges(int[] sources, int[] targets, double[] weights) {
+        grow(edgeCount + sources.length);
+        for (int i = 0; i < sources.length; i++) {
+            addEdge(sources[i], targets[i], weights[i]);
+        }
+        return this;
+    }
+
+    /**
+     * Checks every edge against the graph type and builds the graph. Node i of
+     * the builder gets id i in the graph
+     *
+     * @return Returns the new graph, or null if an edge uses a missing node, an
+     *         edge's weightedness doesn't match the graph type, or the graph
+     *         isn't MULTI and an edge is repeated
+     */
+    public Graph<T> build() {
+        int n = points.size();
+        boolean weighted = (graphType & 2) > 0;
+        boolean directed = (graphType & 1) > 0;
+        boolean multi = (graphType & 4) > 0;
+
+        if (weighted ? unweightedEdges > 0 : weightedEdges > 0)
+            return null;
+
+        long[] keys = multi ? null : new long[edgeCount];
+        for (int i = 0; i < edgeCount; i++) {
+            int one = sources[i];
+            int two = targets[i];
+            if (one < 0 || two < 0 || one >= n || two >= n)
+                return null;
+            if (keys != null) {
+                // undirected edges are the same edge both ways
+                if (!directed && one > two) {
+                    int temp = one;
+                    one = two;
+                    two = temp;
+                }
+                keys[i] = ((long) one << 32) | two;
+            }
+        }
+        if (keys != null) {
+            Arrays.sort(keys);
+            for (int i = 1; i < keys.length; i++) {
+                if (keys[i] == keys[i - 1])
+                    return null;
+            }
+        }
+
+        Graph<T> graph = new Graph<>(graphType, baseValue, naming_f);
+        graph.bulkLoad(points, values, sources, targets, weights, edgeCount);
+        return graph;
+    }
+
+    private void append(int indexOne, int indexTwo, double weight) {
+        if (edgeCount == sources.length)
+            grow(edgeCount * 2);
+        sources[edgeCount] = indexOne;
+        targets[edgeCount] = indexTwo;
+        weights[edgeCount] = weight;
+        edgeCount++;
+    }
+
+    private void grow(int size) {
+        if (size <= sources.length)
+            return;
+        sources = Arrays.copyOf(sources, size);
+        targets = Arrays.copyOf(targets, size);
+        weights = Arrays.copyOf(weights, size);
+    }
+
+}
@@ -0,0 +1,273 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+/**
+ * Bounded event log for Graph
+ *
+ * Events are an event code plus up to three long arguments and one double,
+ * written into a fixed size ring buffer of primitive arrays. Nothing is turned
+ * into a String until somebody asks for it, and events above the current level
+ * return before touching the buffer, so a disabled log costs one compare. Once
+ * the buffer is full the oldest events get overwritten
+ *
+ * Member Methods:
+ * - setLevel(Level level)
+ * - getLevel()
+ * - isEnabled(Level level)
+ * - record(Event event, long a, long b, long c, double w)
+ * - size()
+ * - getDropped()
+ * - getLogs()
+ * - drain(EventSink sink)
+ * - drain(Consumer<String> sink, Executor executor)
+ * - clear()
+ *
+ * @version 1.0
+ */
+public class GraphLog {
+
+    public enum Level {
+        OFF,
+        ERROR,
+        INFO,
+        DEBUG
+    }
+
+    /**
+     * Event codes. Formats are String.format patterns where %1$d, %2$d, %3$d are
+     * the long arguments and %4$s is the double
+     */
+    public enum Event {
+        CREATED(Level.INFO, "Created Graph with type: %1$d"),
+        ADD_NODE(Level.INFO, "Added node: %1$d"),
+        ADD_NODE_MATRIX_FAILED(Level.ERROR, "Failed to add node to Adjacency Matrix: %1$d"),
+        ADD_NODE_LIST_FAILED(Level.ERROR, "Failed to add node to Adjacency List: %1$d"),
+        REMOVE_NODE(Level.INFO, "REMOVED node: %1$d from both successfully"),
+        REMOVE_NODE_MATRIX_FAILED(Level.ERROR, "!!FAILED!! to remove node: %1$d from adjacency matrix"),
+        REMOVE_NODE_LIST_FAILED(Level.ERROR, "!!FAILED!! to remove node: %1$d from adjacency list"),
+        REMOVE_NODE_MISMATCH(Level.ERROR,
+                "!!FAILED!! Different nodes were removed. AdjacencyMatrix Node: %1$d | AdjacencyList Node: %2$d"),
+        GET_NODE(Level.DEBUG, "Returned closest node to point: (%1$d, %2$d). Node returned: %3$d"),
+        GET_NODE_EMPTY(Level.DEBUG, "Graph has no nodes and cannot return any nodes"),
+        GET_NEIGHBORS(Level.DEBUG, "Returned list of neighbor nodes of node: %1$d"),
+        ADD_EDGE(Level.INFO, "Added edge: %3$d with nodes node1: %1$d node2: %2$d"),
+        ADD_WEIGHTED_EDGE(Level.INFO, "Added edge: %3$d with nodes node1: %1$d node2: %2$d with weight: %4$s"),
+        ADD_EDGE_WRONG_FUNCTION(Level.ERROR,
+                "!!FAILED!! to add edge because wrong addEdge() function was called on Node1: %1$d and Node2: %2$d"),
+        ADD_EDGE_EXISTS(Level.ERROR,
+                "!!FAILED!! to add edge because an edge already exists and graph type is nonmulti. Node1: %1$d, Node2: %2$d"),
+        ADD_EDGE_MATRIX_FAILED(Level.ERROR, "!!FAILED!! to add edge to adjacency matrix with node1: %1$d node2: %2$d"),
+        ADD_EDGE_LIST_FAILED(Level.ERROR, "!!FAILED!! to add edge to adjacency list with node1: %1$d node2: %2$d"),
+        ADD_EDGE_MISSING_ID(Level.ERROR, "!!FAILED!! to add edge because an id doesn't exist. Id1: %1$d, Id2: %2$d"),
+        FREEZE(Level.INFO, "Froze graph into CSR snapshot with %1$d nodes"),
+        BULK_LOAD(Level.INFO, "Bulk loaded %1$d nodes and %2$d edges"),
+        REMOVE_EDGE(Level.INFO, "REMOVED edge: %3$d with nodes node1: %1$d node2: %2$d"),
+        REMOVE_EDGE_FAILED(Level.ERROR, "!!FAILED!! to remove edge: %1$d because it doesn't exist"),
+        REMOVE_EDGE_MISSING(Level.ERROR,
+                "!!FAILED!! to remove edge because there is no edge from node1: %1$d to node2: %2$d");
+
+        final Level level;
+        final String format;
+
+        Event(Level level, String format) {
+            this.level = level;
+            this.format = format;
+        }
+
+        /**
+         * @return Returns the event formatted with its arguments
+         */
+        public String format(long a, long b, long c, double w) {
+            return String.format(format, a, b, c, w);
+        }
+    }
+
+    /**
+     * Receives drained events without formatting them
+     */
+    @FunctionalInterface
+    public interface EventSink {
+        void accept(long seq, Event event, long a, long b, long c, double w);
+    }
+
+    private static final Event[] EVENTS = Event.values();
+
+    private final int mask;
+    private final byte[] codes;
+    private final long[] argA;
+    private final long[] argB;
+    private final long[] argC;
+    private final double[] argW;
+
+    // seq is the total number of events ever recorded, drained is where the last
+    // drain stopped and start is where the last clear stopped
+    private long seq;
+    private long drained;
+    private long start;
+    private int threshold;
+
+    /**
+     * Creates a log holding the most recent events
+     *
+     * @param capacity Number of events kept, rounded up to a power of two
+     * @param level    Most detailed level that gets recorded
+     */
+    public GraphLog(int capacity, Level level) {
+        int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        mask = size - 1;
+        codes = new byte[size];
+        argA = new long[size];
+        argB = new long[size];
+        argC = new long[size];
+        argW = new double[size];
+        setLevel(level);
+    }
+
+    /**
+     * Sets the most detailed level that gets recorded, OFF records nothing
+     *
+     * @param level New level
+     */
+    public void setLevel(Level level) {
+        this.threshold = level.ordinal();
+    }
+
+    /**
+     * @return Returns the current level
+     */
+    public Level getLevel() {
+        return Level.values()[threshold];
+    }
+
+    /**
+     * @param level Level to be checked
+     * @return Returns true if events at that level are recorded
+     */
+    public boolean isEnabled(Level level) {
+        return level.ordinal() <= threshold;
+    }
+
+    public void record(Event event) {
+        record(event, 0, 0, 0, 0.0);
+    }
+
+    public void record(Event event, long a) {
+        record(event, a, 0, 0, 0.0);
+    }
+
+    public void record(Event event, long a, long b) {
+        record(event, a, b, 0, 0.0);
+    }
+
+    /**
+     * Records an event if its level is enabled. Doesn't allocate
+     *
+     * @param event Event code
+     * @param a     First argument
+     * @param b     Second argument
+     * @param c     Third argument
+     * @param w     Double argument
+     */
+    public void record(Event event, long a, long b, long c, double w) {
+        if (event.level.ordinal() > threshold)
+            return;
+        int slot = (int) seq & mask;
+        codes[slot] = (byte) event.ordinal();
+        argA[slot] = a;
+        argB[slot] = b;
+        argC[slot] = c;
+        argW[slot] = w;
+        seq++;
+    }
+
+    /**
+     * @return Returns the number of events currently held in the buffer
+     */
+    public int size() {
+        return (int) (seq - Math.max(start, seq - (mask + 1)));
+    }
+
+    /**
+     * @return Returns how many events were overwritten before being drained
+     */
+    public long getDropped() {
+        return Math.max(0, seq - (mask + 1) - drained);
+    }
+
+    /**
+     * Formats every event still in the buffer. This is the only place strings
+     * get built
+     *
+     * @return Returns the held events, oldest first, as "seq: message"
+     */
+    public List<String> getLogs() {
+        long first = seq - size();
+        ArrayList<String> logs = new ArrayList<>(size());
+        for (long i = first; i < seq; i++) {
+            int slot = (int) i & mask;
+            logs.add(i + ": " + EVENTS[codes[slot]].format(argA[slot], argB[slot], argC[slot], argW[slot]));
+        }
+        return logs;
+    }
+
+    /**
+     * Hands every event recorded since the last drain to a sink, oldest first,
+     * without formatting them
+     *
+     * @param sink Receiver of the events
+     * @return Returns the number of events drained
+     */
+    public int drain(EventSink sink) {
+        long first = Math.max(drained, seq - size());
+        for (long i = first; i < seq; i++) {
+            int slot = (int) i & mask;
+            sink.accept(i, EVENTS[codes[slot]], argA[slot], argB[slot], argC[slot], argW[slot]);
+        }
+        drained = seq;
+        return (int) (seq - first);
+    }
+
+    /**
+     * Copies every event recorded since the last drain and formats them on an
+     * executor, so the thread using the graph never builds the strings
+     *
+     * @param sink     Receiver of the formatted events
+     * @param executor Executor the formatting runs on
+     * @return Returns the number of events drained
+     */
+    public int drain(Consumer<String> sink, Executor executor) {
+        long first = Math.max(drained, seq - size());
+        int count = (int) (seq - first);
+        byte[] c = new byte[count];
+        long[] a = new long[count];
+        long[] b = new long[count];
+        long[] cc = new long[count];
+        double[] w = new double[count];
+        for (int i = 0; i < count; i++) {
+            int slot = (int) (first + i) & mask;
+            c[i] = codes[slot];
+            a[i] = argA[slot];
+            b[i] = argB[slot];
+            cc[i] = argC[slot];
+            w[i] = argW[slot];
+        }
+        drained = seq;
+        executor.execute(() -> {
+            for (int i = 0; i < count; i++) {
+                sink.accept((first + i) + ": " + EVENTS[c[i]].format(a[i], b[i], cc[i], w[i]));
+            }
+        });
+        return count;
+    }
+
+    /**
+     * Throws away every held event
+     */
+    public void clear() {
+        start = seq;
+        drained = seq;
+    }
+
+}
@@ -0,0 +1,68 @@
+/**
+ * Lower bound on the distance between two nodes of a CSRGraph, used by AStar
+ *
+ * Nodes are the snapshot's dense indices. estimate() has to be admissible
+ * (never more than the real shortest distance) for AStar.run() to find
+ * shortest paths, and consistent (estimate(u, t) <= w(u, v) + estimate(v, t)
+ * for every edge) for AStar.runBidirectional()
+ *
+ * Member Methods:
+ * - estimate(int from, int to)
+ * - euclidean(CSRGraph<T> graph)
+ * - euclidean(CSRGraph<T> graph, double scale)
+ *
+ * @version 1.0
+ */
+@FunctionalInterface
+public interface Heuristic {
+
+    /**
+     * No estimate at all, AStar behaves like Dijkstra
+     */
+    Heuristic ZERO = (from, to) -> 0;
+
+    /**
+     * @param from Index of the node the path starts from
+     * @param to   Index of the node the path goes to
+     * @return Returns a lower bound on the distance from one node to the other
+     */
+    double estimate(int from, int to);
+
+    /**
+     * Straight line distance between node positions. Only admissible when every
+     * edge weighs at least the distance between its ends
+     *
+     * @param graph Snapshot whose node positions are used
+     * @return Returns the heuristic
+     */
+    static <T> Heuristic euclidean(CSRGraph<T> graph) {
+        return euclidean(graph, 1.0);
+    }
+
+    /**
+     * Straight line distance between node positions times a scale, for weights
+     * in other units than pixels. Only admissible when every edge weighs at
+     * least scale times the distance between its ends
+     *
+     * @param graph Snapshot whose node positions are used
+     * @param scale Weight per unit of distance
+     * @return Returns the heuristic
+     */
+    static <T> Heuristic euclidean(CSRGraph<T> graph, double scale) {
+        // positions are copied so estimates don't go through Node and Point,
+        // moving nodes afterwards doesn't change the snapshot either
+        int n = graph.getSize();
+        double[] xs = new double[n];
+        double[] ys = new double[n];
+        for (int i = 0; i < n; i++) {
+            xs[i] = graph.getNode(i).getPos().x;
+            ys[i] = graph.getNode(i).getPos().y;
+        }
+        return (from, to) -> {
+            double dx = xs[from] - xs[to];
+            double dy = ys[from] - ys[to];
+            return scale * Math.sqrt(dx * dx + dy * dy);
+        };
+    }
+
+}
@@ -0,0 +1,185 @@
+import java.util.Arrays;
+
+/**
+ * Min heap of int keys 0..capacity-1 ordered by a double priority
+ *
+ * A d-ary heap (4 children per entry, shallower than a binary heap and the
+ * children sit next to each other in memory) that knows where every key is,
+ * so a key's priority can be lowered in place instead of pushing a duplicate.
+ * Everything is plain int and double arrays, nothing is boxed and nothing is
+ * allocated after construction
+ *
+ * Member Methods:
+ * - push(int key, double priority)
+ * - pop()
+ * - peek()
+ * - priority(int key)
+ * - contains(int key)
+ * - isEmpty()
+ * - getSize()
+ * - getCapacity()
+ * - clear()
+ *
+ * @version 1.0
+ */
+public class IndexedHeap {
+
+    private static final int D = 4;
+
+    private final int[] heap;
+    // position of each key in heap, -1 if it isn't in the heap
+    private final int[] pos;
+    private final double[] prio;
+    private int size;
+
+    /**
+     * Creates an empty heap
+     *
+     * @param capacity Keys go from 0 to capacity - 1
+     */
+    public IndexedHeap(int capacity) {
+        heap = new int[capacity];
+        pos = new int[capacity];
+        prio = new double[capacity];
+        Arrays.fill(pos, -1);
+    }
+
+    /**
+     * Adds a key, or lowers its priority if it's already in the heap
+     *
+     * @param key      Key to be added
+     * @param priority Priority of the key, lower comes out first
+     * @return Returns true if the key was added or lowered, false if it's
+     *         already in the heap with a priority at most as high
+     */
+    public boolean push(int key, double priority) {
+        int i = pos[key];
+        if (i < 0) {
+            i = size++;
+        } else if (priority >= prio[key]) {
+            return false;
+        }
+        prio[key] = priority;
+        siftUp(key, i);
+        return true;
+    }
+
+    /**
+     * Takes out the key with the lowest priority
+     *
+     * @return Returns the key, -1 if the heap is empty
+     */
+    public int pop() {
+        if (size == 0)
+            return -1;
+        int top = heap[0];
+        pos[top] = -1;
+        int last = heap[--size];
+        if (size > 0)
+            siftDown(last, 0);
+        return top;
+    }
+
+    /**
+     * @return Returns the key with the lowest priority without taking it out,
+     *         -1 if the heap is empty
+     */
+    public int peek() {
+        return (size == 0) ? -1 : heap[0];
+    }
+
+    /**
+     * @param key Key to be checked
+     * @return Returns the priority the key was last pushed with
+     */
+    public double priority(int key) {
+        return prio[key];
+    }
+
+    /**
+     * @param key Key to be checked
+     * @return Returns true if the key is in the heap
+     */
+    public boolean contains(int key) {
+        return pos[key] >= 0;
+    }
+
+    /**
+     * @return Returns true if the heap is empty
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return Returns the number of keys in the heap
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * @return Returns the largest key plus one
+     */
+    public int getCapacity() {
+        return heap.length;
+    }
+
+    /**
+     * Empties the heap, only touches the keys still in it
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            pos[heap[i]] = -1;
+        }
+        size = 0;
+    }
+
+    /**
+     * Moves key up from position i until its parent isn't larger
+     */
+    private void siftUp(int key, int i) {
+        double p = prio[key];
+        while (i > 0) {
+            int parent = (i - 1) / D;
+            int other = heap[parent];
+            if (prio[other] <= p)
+                break;
+            heap[i] = other;
+            pos[other] = i;
+            i = parent;
+        }
+        heap[i] = key;
+        pos[key] = i;
+    }
+
+    /**
+     * Moves key down from position i until none of its children are smaller
+     */
+    private void siftDown(int key, int i) {
+        double p = prio[key];
+        while (true) {
+            int first = i * D + 1;
+            if (first >= size)
+                break;
+            int end = Math.min(first + D, size);
+            int best = first;
+            double bestPrio = prio[heap[first]];
+            for (int c = first + 1; c < end; c++) {
+                double cp = prio[heap[c]];
+                if (cp < bestPrio) {
+                    best = c;
+                    bestPrio = cp;
+                }
+            }
+            if (bestPrio >= p)
+                break;
+            heap[i] = heap[best];
+            pos[heap[i]] = i;
+            i = best;
+        }
+        heap[i] = key;
+        pos[key] = i;
+    }
+
+}
@@ -0,0 +1,429 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Minimum spanning forest of a CSRGraph
+ *
+ * Edges count both ways (directed snapshots are spanned as if undirected) and
+ * self loops are skipped. The forest comes back as the ids the graph gave its
+ * edges (Graph.getEdge()), nothing else is allocated per edge and no Graph is
+ * built. run() picks one of three ways to get there:
+ * - kruskal(): radix sorts the edges by weight as raw long keys, then adds
+ * them lightest first through a plain union find. Best for sparse graphs
+ * - prim(): grows one tree at a time from an IndexedHeap of the cheapest edge
+ * into each node. Best once the average degree is high, nothing is sorted
+ * - boruvka(): every component picks its lightest outgoing edge in parallel
+ * and they're all merged at once through the lock free UnionFind, at most
+ * log n rounds. Best for very large graphs with cores to spare
+ *
+ * When weights tie the three can pick different edges, but every minimum
+ * forest has the same getWeight()
+ *
+ * Member Methods:
+ * - run()
+ * - kruskal()
+ * - prim()
+ * - boruvka()
+ * - getEdgeCount()
+ * - getWeight()
+ * - getTrees()
+ *
+ * @version 1.0
+ */
+public class MST<T> {
+
+    // average degree where Prim's heap starts beating Kruskal's sort
+    public static final int PRIM_DEGREE = 16;
+    // edges where Boruvka's parallel rounds start paying off
+    public static final int BORUVKA_EDGES = 1 << 20;
+
+    // nodes per task
+    private static final int MIN_GRAIN = 1024;
+
+    private final CSRGraph<T> graph;
+    private CSRGraph<T> reverse;
+    private final ForkJoinPool pool;
+    private final int n;
+
+    // edge ids of the last forest, and their weights for boruvka()
+    private int[] tree = new int[0];
+    private double[] treeWeights = new double[0];
+    private int treeSize;
+    private double weight;
+
+    /**
+     * Creates the algorithms for a snapshot using the common pool
+     *
+     * @param graph Snapshot to span
+     */
+    public MST(CSRGraph<T> graph) {
+        this(graph, null, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates the algorithms for a snapshot
+     *
+     * @param graph   Snapshot to span
+     * @param reverse graph.transpose(), graph itself if it's undirected, or null
+     *                to build it when it's first needed
+     * @param pool    Pool to split boruvka() across
+     */
+    public MST(CSRGraph<T> graph, CSRGraph<T> reverse, ForkJoinPool pool) {
+        this.graph = graph;
+        this.reverse = reverse;
+        this.pool = pool;
+        n = graph.getSize();
+    }
+
+    /**
+     * Computes the forest with whichever algorithm suits the snapshot: boruvka()
+     * for very large ones when the pool has more than one thread, prim() for
+     * dense ones, kruskal() otherwise
+     *
+     * @return Returns the edge ids of the forest
+     */
+    public int[] run() {
+        long edges = graph.getEdgeCount();
+        if (edges >= BORUVKA_EDGES && pool.getParallelism() > 1)
+            return boruvka();
+        if (edges >= (long) n * PRIM_DEGREE)
+            return prim();
+        return kruskal();
+    }
+
+    /**
+     * Kruskal: every edge lightest first, kept if it joins two trees. The sort
+     * is an LSD radix sort on the weights' bits with the edge positions
+     * carried along, O(m) and no boxing
+     *
+     * @return Returns the edge ids of the forest
+     */
+    public int[] kruskal() {
+        start();
+        int m = graph.getEdgeCount();
+        long[] keys = new long[m];
+        int[] edges = new int[m];
+        int[] sources = new int[m];
+        int count = 0;
+        // undirected snapshots hold every edge both ways, one is enough
+        boolean symmetric = reverse == graph;
+        for (int u = 0; u < n; u++) {
+            for (int e = graph.edgeStart(u); e < graph.edgeEnd(u); e++) {
+                int v = graph.edgeTarget(e);
+                if (v == u || (symmetric && v < u))
+                    continue;
+                keys[count] = sortable(graph.edgeWeight(e));
+                edges[count] = e;
+                sources[count] = u;
+                count++;
+            }
+        }
+        radixSort(keys, edges, sources, count);
+
+        // sequential, so a plain union find by size with path halving
+        int[] parent = new int[n];
+        int[] size = new int[n];
+        for (int v = 0; v < n; v++) {
+            parent[v] = v;
+            size[v] = 1;
+        }
+        for (int k = 0; k < count && treeSize < n - 1; k++) {
+            int a = root(parent, sources[k]);
+            int b = root(parent, graph.edgeTarget(edges[k]));
+            if (a == b)
+                continue;
+            if (size[a] < size[b]) {
+                int temp = a;
+                a = b;
+                b = temp;
+            }
+            parent[b] = a;
+            size[a] += size[b];
+            add(graph.edgeId(edges[k]), graph.edgeWeight(edges[k]));
+        }
+        return getEdges();
+    }
+
+    /**
+     * Prim: grows a tree from a node by always taking the cheapest edge out of
+     * it, then starts the next tree from a node it didn't reach
+     *
+     * @return Returns the edge ids of the forest
+     */
+    public int[] prim() {
+        start();
+        if (reverse == null)
+            reverse = graph.transpose();
+        IndexedHeap heap = new IndexedHeap(n);
+        boolean[] done = new boolean[n];
+        // cheapest edge into each node so far, as its id and weight
+        int[] bestId = new int[n];
+        double[] bestWeight = new double[n];
+        for (int s = 0; s < n; s++) {
+            if (done[s])
+                continue;
+            bestId[s] = -1;
+            heap.push(s, 0);
+            while (!heap.isEmpty()) {
+                int u = heap.pop();
+                done[u] = true;
+                if (u != s)
+                    add(bestId[u], bestWeight[u]);
+                relax(graph, u, heap, done, bestId, bestWeight);
+                if (reverse != graph)
+                    relax(reverse, u, heap, done, bestId, bestWeight);
+            }
+        }
+        return getEdges();
+    }
+
+    /**
+     * Boruvka: in rounds, every component finds its lightest edge to another
+     * component (nodes split across the pool, the winner per component picked
+     * by CAS) and all of those are merged at once. Every round at least halves
+     * the number of components that still have edges out
+     *
+     * @return Returns the edge ids of the forest
+     */
+    public int[] boruvka() {
+        start();
+        if (reverse == null)
+            reverse = graph.transpose();
+        UnionFind uf = new UnionFind(n);
+        int[] comp = new int[n];
+        // lightest candidate per component root, source << 32 | position
+        // (positions in reverse are stored as ~position), -1 if none
+        AtomicLongArray best = new AtomicLongArray(n);
+        AtomicInteger found = new AtomicInteger();
+
+        while (true) {
+            Parallel.forRange(pool, 0, n, MIN_GRAIN, (from, to) -> {
+                for (int v = from; v < to; v++) {
+                    comp[v] = uf.find(v);
+                    best.set(v, -1);
+                }
+            });
+            Parallel.forRange(pool, 0, n, MIN_GRAIN, (from, to) -> {
+                for (int u = from; u < to; u++) {
+                    long mine = lightest(graph, u, comp, -1);
+                    if (reverse != graph)
+                        mine = lightest(reverse, u, comp, mine);
+                    if (mine < 0)
+                        continue;
+                    int c = comp[u];
+                    long cur = best.get(c);
+                    while ((cur < 0 || lighter(mine, cur)) && !best.compareAndSet(c, cur, mine)) {
+                        cur = best.get(c);
+                    }
+                }
+            });
+
+            // ties are broken by the endpoints, so the picked edges can't close a
+            // cycle, except two components picking the same pair of nodes, and
+            // union() turns the second one down
+            int before = found.get();
+            Parallel.forRange(pool, 0, n, MIN_GRAIN, (from, to) -> {
+                for (int c = from; c < to; c++) {
+                    long pick = best.get(c);
+                    if (pick < 0 || !uf.union(source(pick), target(pick)))
+                        continue;
+                    int k = found.getAndIncrement();
+                    tree[k] = edgeId(pick);
+                    treeWeights[k] = edgeWeight(pick);
+                }
+            });
+            if (found.get() == before)
+                break;
+        }
+
+        treeSize = found.get();
+        for (int k = 0; k < treeSize; k++) {
+            weight += treeWeights[k];
+        }
+        return getEdges();
+    }
+
+    /**
+     * @return Returns the number of edges in the last forest
+     */
+    public int getEdgeCount() {
+        return treeSize;
+    }
+
+    /**
+     * @return Returns the total weight of the last forest
+     */
+    public double getWeight() {
+        return weight;
+    }
+
+    /**
+     * @return Returns the number of trees in the last forest, one per connected
+     *         component (isolated nodes count)
+     */
+    public int getTrees() {
+        return n - treeSize;
+    }
+
+    /**
+     * Resets the last result, allocates the result arrays the first time
+     */
+    private void start() {
+        treeSize = 0;
+        weight = 0;
+        if (tree.length < n) {
+            tree = new int[n];
+            treeWeights = new double[n];
+        }
+    }
+
+    private void add(int edgeId, double edgeWeight) {
+        tree[treeSize++] = edgeId;
+        weight += edgeWeight;
+    }
+
+    /**
+     * @return Returns a copy of the edge ids of the last forest
+     */
+    private int[] getEdges() {
+        return Arrays.copyOf(tree, treeSize);
+    }
+
+    /**
+     * Offers the edges of a row to the heap
+     */
+    private static <T> void relax(CSRGraph<T> rows, int u, IndexedHeap heap, boolean[] done, int[] bestId,
+            double[] bestWeight) {
+        for (int e = rows.edgeStart(u); e < rows.edgeEnd(u); e++) {
+            int v = rows.edgeTarget(e);
+            if (!done[v] && heap.push(v, rows.edgeWeight(e))) {
+                bestId[v] = rows.edgeId(e);
+                bestWeight[v] = rows.edgeWeight(e);
+            }
+        }
+    }
+
+    /**
+     * Finds the lightest edge of a row that leaves u's component
+     *
+     * @param current Candidate to beat, -1 for none
+     * @return Returns the lighter of current and the row's best candidate
+     */
+    private long lightest(CSRGraph<T> rows, int u, int[] comp, long current) {
+        for (int e = rows.edgeStart(u); e < rows.edgeEnd(u); e++) {
+            if (comp[rows.edgeTarget(e)] == comp[u])
+                continue;
+            long candidate = ((long) u << 32) | ((rows == graph ? e : ~e) & 0xFFFFFFFFL);
+            if (current < 0 || lighter(candidate, current))
+                current = candidate;
+        }
+        return current;
+    }
+
+    /**
+     * Orders candidates by weight, then by their endpoints as an unordered
+     * pair, so both directions of an edge compare equal
+     *
+     * @return Returns true if a comes strictly before b
+     */
+    private boolean lighter(long a, long b) {
+        double wa = edgeWeight(a);
+        double wb = edgeWeight(b);
+        if (wa != wb)
+            return wa < wb;
+        int sa = source(a);
+        int ta = target(a);
+        int sb = source(b);
+        int tb = target(b);
+        int loA = Math.min(sa, ta);
+        int loB = Math.min(sb, tb);
+        if (loA != loB)
+            return loA < loB;
+        return Math.max(sa, ta) < Math.max(sb, tb);
+    }
+
+    private static int source(long candidate) {
+        return (int) (candidate >>> 32);
+    }
+
+    private int target(long candidate) {
+        int e = (int) candidate;
+        return (e >= 0) ? graph.edgeTarget(e) : reverse.edgeTarget(~e);
+    }
+
+    private double edgeWeight(long candidate) {
+        int e = (int) candidate;
+        return (e >= 0) ? graph.edgeWeight(e) : reverse.edgeWeight(~e);
+    }
+
+    private int edgeId(long candidate) {
+        int e = (int) candidate;
+        return (e >= 0) ? graph.edgeId(e) : reverse.edgeId(~e);
+    }
+
+    private static int root(int[] parent, int x) {
+        while (parent[x] != x) {
+            parent[x] = parent[parent[x]];
+            x = parent[x];
+        }
+        return x;
+    }
+
+    /**
+     * @return Returns the bits of a double flipped so that comparing them as
+     *         unsigned longs orders them like the doubles
+     */
+    private static long sortable(double value) {
+        long bits = Double.doubleToLongBits(value);
+        return bits ^ ((bits >> 63) | Long.MIN_VALUE);
+    }
+
+    /**
+     * Sorts keys as unsigned longs a byte at a time, moving the two int arrays
+     * along with them. Stable, skips any byte every key has in common
+     */
+    private static void radixSort(long[] keys, int[] one, int[] two, int count) {
+        long[] keysFrom = keys;
+        int[] oneFrom = one;
+        int[] twoFrom = two;
+        long[] keysTo = new long[count];
+        int[] oneTo = new int[count];
+        int[] twoTo = new int[count];
+        int[] buckets = new int[257];
+        for (int shift = 0; shift < 64; shift += 8) {
+            Arrays.fill(buckets, 0);
+            for (int i = 0; i < count; i++) {
+                buckets[((int) (keysFrom[i] >>> shift) & 0xFF) + 1]++;
+            }
+            if (count == 0 || buckets[((int) (keysFrom[0] >>> shift) & 0xFF) + 1] == count)
+                continue;
+            for (int b = 0; b < 256; b++) {
+                buckets[b + 1] += buckets[b];
+            }
+            for (int i = 0; i < count; i++) {
+                int k = buckets[(int) (keysFrom[i] >>> shift) & 0xFF]++;
+                keysTo[k] = keysFrom[i];
+                oneTo[k] = oneFrom[i];
+                twoTo[k] = twoFrom[i];
+            }
+            // the sorted copy is the input of the next pass
+            long[] keysTemp = keysFrom;
+            keysFrom = keysTo;
+            keysTo = keysTemp;
+            int[] temp = oneFrom;
+            oneFrom = oneTo;
+            oneTo = temp;
+            temp = twoFrom;
+            twoFrom = twoTo;
+            twoTo = temp;
+        }
+        if (keysFrom != keys) {
+            System.arraycopy(keysFrom, 0, keys, 0, count);
+            System.arraycopy(oneFrom, 0, one, 0, count);
+            System.arraycopy(twoFrom, 0, two, 0, count);
+        }
+    }
+
+}
@@ -0,0 +1,307 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A frozen graph read straight out of a memory mapped file
+ *
+ * write() stores a CSRGraph in a flat binary file, open() maps it back with
+ * FileChannel.map() and that's all: nothing is read or converted up front, the
+ * OS pages in what traversals touch, so even a graph of several GB can be
+ * queried as soon as open() returns. Files bigger than a single mapping
+ * (2GB) are mapped in CHUNK sized pieces. Reads are absolute, so any number
+ * of threads can share one MappedGraph
+ *
+ * File layout, little endian, every section starts on a multiple of 8:
+ * - header, HEADER_SIZE bytes: magic, format version, graph type, node count
+ * (ints), edge count (long), then the file offsets of the sections below
+ * (longs)
+ * - node table: id in the Graph, x, y (ints) per node
+ * - offsets: node count + 1 ints, the edges of node i are offsets[i] ..
+ * offsets[i + 1] - 1
+ * - targets: one int per edge, each row sorted
+ * - weights: one double per edge
+ * - edge ids: one int per edge, the Graph's edge id
+ *
+ * Node values aren't stored, they can be anything. Node ids are, so a
+ * MappedGraph lines up with the Graph it was written from (getNodeById())
+ *
+ * Member Methods:
+ * - write(CSRGraph<?> graph, int graphType, Path file)
+ * - open(Path file)
+ * - getType()
+ * - getSize()
+ * - getEdgeCount()
+ * - nodeId(int index)
+ * - nodeX(int index)
+ * - nodeY(int index)
+ * - degree(int index)
+ * - edgeStart(int index)
+ * - edgeEnd(int index)
+ * - edgeTarget(int edge)
+ * - edgeWeight(int edge)
+ * - edgeId(int edge)
+ * - edgeExists(int indexOne, int indexTwo)
+ *
+ * @version 1.0
+ */
+public class MappedGraph implements Adjacency {
+
+    public static final int MAGIC = 0x47525048; // "GRPH"
+    public static final int FORMAT_VERSION = 1;
+    public static final int HEADER_SIZE = 64;
+
+    // bytes per mapping, a power of two so no 4 or 8 byte value (8 aligned
+    // sections) ever straddles two mappings
+    private static final int CHUNK_BITS = 30;
+    private static final long CHUNK = 1L << CHUNK_BITS;
+    private static final long CHUNK_MASK = CHUNK - 1;
+    // write buffer
+    private static final int BUFFER = 1 << 20;
+
+    private final MappedByteBuffer[] chunks;
+    private final int graphType;
+    private final int n;
+    private final int m;
+    private final long nodeTable;
+    private final long offsets;
+    private final long targets;
+    private final long weights;
+    private final long edgeIds;
+
+    private MappedGraph(MappedByteBuffer[] chunks) {
+        this.chunks = chunks;
+        graphType = getInt(8);
+        n = getInt(12);
+        m = (int) getLong(16);
+        nodeTable = getLong(24);
+        offsets = getLong(32);
+        targets = getLong(40);
+        weights = getLong(48);
+        edgeIds = getLong(56);
+    }
+
+    /**
+     * Writes a snapshot to a file, replacing whatever was there
+     *
+     * @param graph     Snapshot to write
+     * @param graphType Type of the graph it came from, stored in the header
+     * @param file      File to write
+     * @return Returns false if the file couldn't be written
+     */
+    public static boolean write(CSRGraph<?> graph, int graphType, Path file) {
+        int n = graph.getSize();
+        int m = graph.getEdgeCount();
+        long nodeTable = HEADER_SIZE;
+        long offsets = align(nodeTable + 12L * n);
+        long targets = align(offsets + 4L * (n + 1));
+        long weights = align(targets + 4L * m);
+        long edgeIds = align(weights + 8L * m);
+        long end = align(edgeIds + 4L * m);
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buf = ByteBuffer.allocateDirect(BUFFER).order(ByteOrder.LITTLE_ENDIAN);
+            buf.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(graphType).putInt(n).putLong(m);
+            buf.putLong(nodeTable).putLong(offsets).putLong(targets).putLong(weights).putLong(edgeIds);
+            for (int i = 0; i < n; i++) {
+                Node<?> node = graph.getNode(i);
+                room(channel, buf, 12);
+                buf.putInt(node.getId()).putInt(node.getPos().x).putInt(node.getPos().y);
+            }
+            pad(channel, buf, offsets);
+            for (int i = 0; i < n; i++) {
+                room(channel, buf, 4);
+                buf.putInt(graph.edgeStart(i));
+            }
+            room(channel, buf, 4);
+            buf.putInt(m);
+            pad(channel, buf, targets);
+            for (int e = 0; e < m; e++) {
+                room(channel, buf, 4);
+                buf.putInt(graph.edgeTarget(e));
+            }
+            pad(channel, buf, weights);
+            for (int e = 0; e < m; e++) {
+                room(channel, buf, 8);
+                buf.putDouble(graph.edgeWeight(e));
+            }
+            pad(channel, buf, edgeIds);
+            for (int e = 0; e < m; e++) {
+                room(channel, buf, 4);
+                buf.putInt(graph.edgeId(e));
+            }
+            pad(channel, buf, end);
+            drain(channel, buf);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Maps a file written by write(). Only the header is read
+     *
+     * @param file File to open
+     * @return Returns the graph, null if the file can't be read or isn't a
+     *         graph file of this version
+     */
+    public static MappedGraph open(Path file) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE)
+                return null;
+            MappedByteBuffer[] chunks = new MappedByteBuffer[(int) ((size + CHUNK - 1) >>> CHUNK_BITS)];
+            for (int c = 0; c < chunks.length; c++) {
+                long start = (long) c << CHUNK_BITS;
+                chunks[c] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(CHUNK, size - start));
+                chunks[c].order(ByteOrder.LITTLE_ENDIAN);
+            }
+            // the mappings stay valid after the channel is closed
+            if (chunks[0].getInt(0) != MAGIC || chunks[0].getInt(4) != FORMAT_VERSION)
+                return null;
+            MappedGraph graph = new MappedGraph(chunks);
+            if (graph.edgeIds + 4L * graph.m > size)
+                return null;
+            return graph;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return Returns the type of the graph that was written
+     */
+    public int getType() {
+        return graphType;
+    }
+
+    public int getSize() {
+        return n;
+    }
+
+    public int getEdgeCount() {
+        return m;
+    }
+
+    /**
+     * @param index Dense index of the node
+     * @return Returns the id the node had in its Graph
+     */
+    public int nodeId(int index) {
+        return getInt(nodeTable + 12L * index);
+    }
+
+    /**
+     * @param index Dense index of the node
+     * @return Returns the node's x position
+     */
+    public int nodeX(int index) {
+        return getInt(nodeTable + 12L * index + 4);
+    }
+
+    /**
+     * @param index Dense index of the node
+     * @return Returns the node's y position
+     */
+    public int nodeY(int index) {
+        return getInt(nodeTable + 12L * index + 8);
+    }
+
+    public int degree(int index) {
+        return edgeEnd(index) - edgeStart(index);
+    }
+
+    public int edgeStart(int index) {
+        return getInt(offsets + 4L * index);
+    }
+
+    public int edgeEnd(int index) {
+        return getInt(offsets + 4L * (index + 1));
+    }
+
+    public int edgeTarget(int edge) {
+        return getInt(targets + 4L * edge);
+    }
+
+    public double edgeWeight(int edge) {
+        return getDouble(weights + 8L * edge);
+    }
+
+    public int edgeId(int edge) {
+        return getInt(edgeIds + 4L * edge);
+    }
+
+    /**
+     * Detects if a directed edge exists between two nodes, a binary search of
+     * the sorted row
+     *
+     * @param indexOne Dense index of the SOURCE node
+     * @param indexTwo Dense index of the TARGET node
+     * @return Returns true if an edge exists, false otherwise
+     */
+    public boolean edgeExists(int indexOne, int indexTwo) {
+        int lo = edgeStart(indexOne);
+        int hi = edgeEnd(indexOne) - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int target = edgeTarget(mid);
+            if (target < indexTwo)
+                lo = mid + 1;
+            else if (target > indexTwo)
+                hi = mid - 1;
+            else
+                return true;
+        }
+        return false;
+    }
+
+    private int getInt(long pos) {
+        return chunks[(int) (pos >>> CHUNK_BITS)].getInt((int) (pos & CHUNK_MASK));
+    }
+
+    private long getLong(long pos) {
+        return chunks[(int) (pos >>> CHUNK_BITS)].getLong((int) (pos & CHUNK_MASK));
+    }
+
+    private double getDouble(long pos) {
+        return chunks[(int) (pos >>> CHUNK_BITS)].getDouble((int) (pos & CHUNK_MASK));
+    }
+
+    private static long align(long pos) {
+        return (pos + 7) & ~7L;
+    }
+
+    /**
+     * Makes sure the buffer has room for bytes more, writing it out if not
+     */
+    private static void room(FileChannel channel, ByteBuffer buf, int bytes) throws IOException {
+        if (buf.remaining() < bytes)
+            drain(channel, buf);
+    }
+
+    /**
+     * Writes zeros up to a file position
+     */
+    private static void pad(FileChannel channel, ByteBuffer buf, long pos) throws IOException {
+        long written = channel.position() + buf.position();
+        while (written < pos) {
+            room(channel, buf, 1);
+            buf.put((byte) 0);
+            written++;
+        }
+    }
+
+    private static void drain(FileChannel channel, ByteBuffer buf) throws IOException {
+        buf.flip();
+        while (buf.hasRemaining()) {
+            channel.write(buf);
+        }
+        buf.clear();
+    }
+
+}
@@ -0,0 +1,170 @@
+/**
+ * Index from TARGET node to the edges pointing at it, for one node's edge list
+ *
+ * AdjList only builds one for nodes with a lot of edges, where walking the
+ * edge list to answer edgeExists() or findEdge() gets slow. Open addressing
+ * with linear probing over identity hashes of the target nodes, so there are
+ * no entry objects or boxing. Parallel edges to the same target are chained
+ * through Edge.nextSame / Edge.prevSame and the table holds the head of the
+ * chain, so adding and removing a specific edge stays O(1)
+ *
+ * Member Methods:
+ * - get(Node<T> target)
+ * - add(Edge<T> edge)
+ * - remove(Edge<T> edge)
+ * - getSize()
+ *
+ * @version 1.0
+ */
+class NeighborIndex<T> {
+
+    private Object[] keys;
+    private Edge<T>[] heads;
+    private int mask;
+    // number of distinct targets, not edges
+    private int size;
+
+    /**
+     * Creates an empty index
+     *
+     * @param expected Number of targets expected
+     */
+    NeighborIndex(int expected) {
+        // at most half full
+        int capacity = Integer.highestOneBit(Math.max(8, expected * 2 - 1)) << 1;
+        allocate(capacity);
+    }
+
+    /**
+     * Gets the most recently added edge to a target
+     *
+     * @param target The TARGET node
+     * @return Returns an edge to target (the rest follow through nextSame), null
+     *         if there isn't one
+     */
+    Edge<T> get(Node<T> target) {
+        int i = slot(target);
+        while (keys[i] != null) {
+            if (keys[i] == target)
+                return heads[i];
+            i = (i + 1) & mask;
+        }
+        return null;
+    }
+
+    /**
+     * Adds an edge, it goes to the front of its target's chain
+     *
+     * @param edge Edge that was just added to the edge list
+     */
+    void add(Edge<T> edge) {
+        edge.prevSame = null;
+        int i = slot(edge.one);
+        while (keys[i] != null) {
+            if (keys[i] == edge.one) {
+                edge.nextSame = heads[i];
+                heads[i].prevSame = edge;
+                heads[i] = edge;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        edge.nextSame = null;
+        keys[i] = edge.one;
+        heads[i] = edge;
+        if (++size * 2 > keys.length)
+            resize(keys.length * 2);
+    }
+
+    /**
+     * Removes an edge, the target's entry goes once its last edge does
+     *
+     * @param edge Edge that is being removed from the edge list
+     */
+    void remove(Edge<T> edge) {
+        Edge<T> prev = edge.prevSame;
+        Edge<T> next = edge.nextSame;
+        edge.prevSame = null;
+        edge.nextSame = null;
+        if (next != null)
+            next.prevSame = prev;
+        if (prev != null) {
+            prev.nextSame = next;
+            return;
+        }
+
+        // edge was the head
+        int i = slot(edge.one);
+        while (keys[i] != edge.one) {
+            if (keys[i] == null)
+                return;
+            i = (i + 1) & mask;
+        }
+        if (next != null) {
+            heads[i] = next;
+            return;
+        }
+        delete(i);
+    }
+
+    /**
+     * @return Returns the number of distinct targets
+     */
+    int getSize() {
+        return size;
+    }
+
+    /**
+     * Empties slot i and shifts back the entries after it that probed past it,
+     * so lookups never stop early at a hole
+     */
+    private void delete(int i) {
+        int j = i;
+        while (true) {
+            j = (j + 1) & mask;
+            if (keys[j] == null)
+                break;
+            int home = slot(keys[j]);
+            // keys[j] can move to i only if its home isn't in (i, j] cyclically
+            if (((j - home) & mask) >= ((j - i) & mask)) {
+                keys[i] = keys[j];
+                heads[i] = heads[j];
+                i = j;
+            }
+        }
+        keys[i] = null;
+        heads[i] = null;
+        size--;
+    }
+
+    private void resize(int capacity) {
+        Object[] oldKeys = keys;
+        Edge<T>[] oldHeads = heads;
+        allocate(capacity);
+        for (int k = 0; k < oldKeys.length; k++) {
+            if (oldKeys[k] == null)
+                continue;
+            int i = slot(oldKeys[k]);
+            while (keys[i] != null)
+                i = (i + 1) & mask;
+            keys[i] = oldKeys[k];
+            heads[i] = oldHeads[k];
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new Object[capacity];
+        @SuppressWarnings("unchecked")
+        Edge<T>[] fresh = (Edge<T>[]) new Edge<?>[capacity];
+        heads = fresh;
+        mask = capacity - 1;
+    }
+
+    private int slot(Object key) {
+        // identity hashes are fine on their own but spread them anyway so
+        // the low bits used here aren't correlated
+        int h = System.identityHashCode(key) * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+}
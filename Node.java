@@ -10,6 +10,8 @@ public class Node<T> {
     private Point p;
     private T val;
     private boolean selected;
+    private int id = -1;
+    private SpatialGrid<T> grid;
 
     /**
      * Creates a node with a value and a point
@@ -48,22 +50,53 @@ public class Node<T> {
     }
 
     /**
-     * Sets position
+     * Sets position, and moves the node in its graph's spatial grid
      * 
      * @param x
      * @param y
      */
     public void setPos(int x, int y) {
         this.p.setLocation(x, y);
+        if (grid != null)
+            grid.move(this);
     }
 
     /**
+     * !! Use setPos() to move the node, changing this point directly won't
+     * update the graph's spatial grid !!
+     * 
      * @return Returns a Point of the nodes position
      */
     public Point getPos() {
         return p;
     }
 
+    /**
+     * @return Returns the dense id given by the owning graph, -1 if the node
+     *         isn't in a graph
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Sets the dense id, only the owning graph should call this
+     * 
+     * @param id New id, -1 to clear
+     */
+    void setId(int id) {
+        this.id = id;
+    }
+
+    /**
+     * Sets the spatial grid the node is in, only the grid should call this
+     * 
+     * @param grid Grid the node was added to, null when removed
+     */
+    void setGrid(SpatialGrid<T> grid) {
+        this.grid = grid;
+    }
+
     /**
      * @return status of selected
      */
@@ -0,0 +1,666 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Adjacency list kept outside the Java heap
+ *
+ * A Graph spends around 150 bytes of heap per edge on Node, Point, Edge and
+ * boxed Double objects, and the GC has to walk all of them. Here nothing per
+ * node or edge is an object: node positions and every edge's target and
+ * weight live in direct ByteBuffers, 24 bytes per edge (the edge is stored in
+ * its SOURCE's row and in its TARGET's incoming row) and 32 per node, and the
+ * heap only holds a handful of buffer references however big the graph gets
+ *
+ * Nodes are dense indices handed out by addNode(). Each node's edges are a
+ * row of slots in one big arena, a full row moves to the end of the arena
+ * with twice the room (like an ArrayList growing) and the space it leaves is
+ * reclaimed by compact(), which also runs by itself once more than half the
+ * arena is dead. Buffers grow in chunks, so nothing is ever copied to grow
+ * past the first chunk. Like AdjList, edges are directed, rows are in no
+ * particular order and removing an edge swaps the last one of its row into
+ * its place. Lookups scan the SOURCE's row
+ *
+ * It is an Adjacency, so BFS and Dijkstra run on it as they do on a
+ * CSRGraph, and reverse() is the Adjacency of the incoming rows. Positions
+ * move when edges are added or removed, so don't change the list while an
+ * algorithm is running on it
+ *
+ * The memory is owned by the list: close() lets go of every buffer and the
+ * list can't be used after that (methods fail the way they do for a missing
+ * node, the Adjacency methods throw). Direct buffers are freed when the GC
+ * collects their (small) objects, so make sure -XX:MaxDirectMemorySize
+ * leaves room for the graph
+ *
+ * Not thread safe
+ *
+ * Member Methods:
+ * - addNode(int x, int y)
+ * - setPos(int index, int x, int y)
+ * - nodeX(int index)
+ * - nodeY(int index)
+ * - addEdge(int indexOne, int indexTwo)
+ * - addEdge(int indexOne, int indexTwo, double weight)
+ * - removeNode(int index)
+ * - removeEdge(int indexOne, int indexTwo)
+ * - findEdge(int indexOne, int indexTwo)
+ * - minWeight(int indexOne, int indexTwo)
+ * - edgeExists(int indexOne, int indexTwo)
+ * - nodeExists(int index)
+ * - getNeighbors(int index)
+ * - getInNeighbors(int index)
+ * - inDegree(int index)
+ * - outDegree(int index)
+ * - getSize()
+ * - getEdgeCount()
+ * - degree(int index)
+ * - edgeStart(int index)
+ * - edgeEnd(int index)
+ * - edgeTarget(int edge)
+ * - edgeWeight(int edge)
+ * - edgeId(int edge)
+ * - reverse()
+ * - compact()
+ * - getBytes()
+ * - close()
+ * - isClosed()
+ *
+ * @version 1.0
+ */
+public class OffHeapAdjList implements Adjacency, AutoCloseable {
+
+    // slots a row starts with
+    private static final int FIRST_ROW = 4;
+    // arena slots that have to be dead before compacting is worth it
+    private static final int MIN_COMPACT = 1 << 16;
+
+    private Region positions = new Region();
+    private Rows out = new Rows();
+    private Rows in = new Rows();
+    private final Adjacency reverse = new Reverse();
+    private int n;
+    private int m;
+    private boolean closed;
+
+    /**
+     * Adds a node
+     *
+     * @param x X value of the node
+     * @param y Y value of the node
+     * @return Returns the node's index, -1 if the list is closed or full
+     */
+    public int addNode(int x, int y) {
+        if (closed || n == Integer.MAX_VALUE)
+            return -1;
+        positions.ensure(8L * (n + 1));
+        positions.putInt(8L * n, x);
+        positions.putInt(8L * n + 4, y);
+        out.addRow(n);
+        in.addRow(n);
+        return n++;
+    }
+
+    /**
+     * Moves a node
+     *
+     * @param index Index of the node
+     * @param x     New x value
+     * @param y     New y value
+     * @return Returns false if the node doesn't exist
+     */
+    public boolean setPos(int index, int x, int y) {
+        if (!nodeExists(index))
+            return false;
+        positions.putInt(8L * index, x);
+        positions.putInt(8L * index + 4, y);
+        return true;
+    }
+
+    /**
+     * @param index Index of the node
+     * @return Returns the node's x value
+     */
+    public int nodeX(int index) {
+        return positions.getInt(8L * index);
+    }
+
+    /**
+     * @param index Index of the node
+     * @return Returns the node's y value
+     */
+    public int nodeY(int index) {
+        return positions.getInt(8L * index + 4);
+    }
+
+    /**
+     * Adds an unweighted (weight 1.0) directional edge from indexOne ->
+     * indexTwo
+     *
+     * @param indexOne Index of the SOURCE node
+     * @param indexTwo Index of the TARGET node
+     * @return Returns false if either node doesn't exist or the arena is full
+     */
+    public boolean addEdge(int indexOne, int indexTwo) {
+        return addEdge(indexOne, indexTwo, 1.0);
+    }
+
+    /**
+     * Adds a weighted directional edge from indexOne -> indexTwo
+     *
+     * @param indexOne Index of the SOURCE node
+     * @param indexTwo Index of the TARGET node
+     * @param weight   Weight of the edge
+     * @return Returns false if either node doesn't exist or the arena is full
+     */
+    public boolean addEdge(int indexOne, int indexTwo, double weight) {
+        if (!nodeExists(indexOne) || !nodeExists(indexTwo) || m == Integer.MAX_VALUE)
+            return false;
+        if (!out.append(indexOne, indexTwo, weight))
+            return false;
+        if (!in.append(indexTwo, indexOne, weight)) {
+            out.removeAt(indexOne, out.find(indexOne, indexTwo, weight));
+            return false;
+        }
+        m++;
+        return true;
+    }
+
+    /**
+     * Removes a node and every edge into or out of it. Its index isn't handed
+     * out again
+     *
+     * @param index Index of the node
+     * @return Returns false if the node doesn't exist
+     */
+    public boolean removeNode(int index) {
+        if (!nodeExists(index))
+            return false;
+        int removed = 0;
+        for (int e = out.start(index); e < out.end(index); e++) {
+            int target = out.entry(e);
+            if (target != index)
+                in.removeAt(target, in.find(target, index, out.weight(e)));
+            removed++;
+        }
+        for (int e = in.start(index); e < in.end(index); e++) {
+            int source = in.entry(e);
+            if (source != index) {
+                out.removeAt(source, out.find(source, index, in.weight(e)));
+                removed++;
+            }
+        }
+        out.clear(index);
+        in.clear(index);
+        m -= removed;
+        return true;
+    }
+
+    /**
+     * Removes an edge from indexOne -> indexTwo, the first one found if there
+     * are parallel edges
+     *
+     * @param indexOne Index of the SOURCE node
+     * @param indexTwo Index of the TARGET node
+     * @return Returns false if either node or the edge doesn't exist
+     */
+    public boolean removeEdge(int indexOne, int indexTwo) {
+        int e = findEdge(indexOne, indexTwo);
+        if (e < 0)
+            return false;
+        double weight = out.weight(e);
+        out.removeAt(indexOne, e);
+        in.removeAt(indexTwo, in.find(indexTwo, indexOne, weight));
+        m--;
+        return true;
+    }
+
+    /**
+     * Finds an edge from indexOne -> indexTwo, the first one found if there
+     * are parallel edges
+     *
+     * @param indexOne Index of the SOURCE node
+     * @param indexTwo Index of the TARGET node
+     * @return Returns the edge's position (see edgeWeight()), -1 if either node
+     *         or the edge doesn't exist
+     */
+    public int findEdge(int indexOne, int indexTwo) {
+        if (!nodeExists(indexOne) || !nodeExists(indexTwo))
+            return -1;
+        return out.find(indexOne, indexTwo);
+    }
+
+    /**
+     * Finds the smallest weight among the edges from one node to another
+     *
+     * @param indexOne Index of the SOURCE node
+     * @param indexTwo Index of the TARGET node
+     * @return Returns the smallest weight, infinity if either node or the edge
+     *         doesn't exist
+     */
+    public double minWeight(int indexOne, int indexTwo) {
+        double min = Double.POSITIVE_INFINITY;
+        if (!nodeExists(indexOne))
+            return min;
+        for (int e = out.start(indexOne); e < out.end(indexOne); e++) {
+            if (out.entry(e) == indexTwo)
+                min = Math.min(min, out.weight(e));
+        }
+        return min;
+    }
+
+    /**
+     * Detects if a given directed edge exists between two nodes
+     *
+     * @param indexOne Index of the SOURCE node
+     * @param indexTwo Index of the TARGET node
+     * @return Returns true if an edge exists, false if either node or the edge
+     *         doesn't exist
+     */
+    public boolean edgeExists(int indexOne, int indexTwo) {
+        return findEdge(indexOne, indexTwo) >= 0;
+    }
+
+    /**
+     * @param index Index of the node
+     * @return Returns true if the index was handed out, the node hasn't been
+     *         removed and the list isn't closed
+     */
+    public boolean nodeExists(int index) {
+        return !closed && index >= 0 && index < n && out.start(index) != Rows.REMOVED;
+    }
+
+    /**
+     * @param index Index of the node
+     * @return Returns the TARGET of every edge leaving the node (repeated for
+     *         parallel edges), null if the node doesn't exist
+     */
+    public int[] getNeighbors(int index) {
+        return nodeExists(index) ? out.entries(index) : null;
+    }
+
+    /**
+     * @param index Index of the node
+     * @return Returns the SOURCE of every edge into the node (repeated for
+     *         parallel edges), null if the node doesn't exist
+     */
+    public int[] getInNeighbors(int index) {
+        return nodeExists(index) ? in.entries(index) : null;
+    }
+
+    /**
+     * @param index Index of the node
+     * @return Returns the number of edges into the node, -1 if the node doesn't
+     *         exist
+     */
+    public int inDegree(int index) {
+        return nodeExists(index) ? in.size(index) : -1;
+    }
+
+    /**
+     * @param index Index of the node
+     * @return Returns the number of edges leaving the node, -1 if the node
+     *         doesn't exist
+     */
+    public int outDegree(int index) {
+        return nodeExists(index) ? out.size(index) : -1;
+    }
+
+    /**
+     * @return Returns the number of indices handed out, removed nodes included
+     */
+    public int getSize() {
+        return n;
+    }
+
+    public int getEdgeCount() {
+        return m;
+    }
+
+    public int degree(int index) {
+        return out.size(index);
+    }
+
+    public int edgeStart(int index) {
+        return out.start(index);
+    }
+
+    public int edgeEnd(int index) {
+        return out.end(index);
+    }
+
+    public int edgeTarget(int edge) {
+        return out.entry(edge);
+    }
+
+    public double edgeWeight(int edge) {
+        return out.weight(edge);
+    }
+
+    /**
+     * @return Returns -1, edges here have no ids
+     */
+    public int edgeId(int edge) {
+        return -1;
+    }
+
+    /**
+     * The incoming rows as an Adjacency, edges point from TARGET back to
+     * SOURCE. Meant as BFS's reverse graph. Changes with the list
+     *
+     * @return Returns the transposed view
+     */
+    public Adjacency reverse() {
+        return reverse;
+    }
+
+    /**
+     * Packs every row together, giving back the space moved and removed edges
+     * left behind. Edge positions change
+     */
+    public void compact() {
+        if (closed)
+            return;
+        out.compact();
+        in.compact();
+    }
+
+    /**
+     * @return Returns the bytes of direct memory the list holds
+     */
+    public long getBytes() {
+        if (closed)
+            return 0;
+        return positions.capacity() + out.capacity() + in.capacity();
+    }
+
+    /**
+     * Lets go of all the memory, nothing can be done with the list afterwards
+     */
+    public void close() {
+        closed = true;
+        positions = null;
+        out = null;
+        in = null;
+    }
+
+    /**
+     * @return Returns true once close() has been called
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    private final class Reverse implements Adjacency {
+        public int getSize() {
+            return n;
+        }
+
+        public int getEdgeCount() {
+            return m;
+        }
+
+        public int degree(int index) {
+            return in.size(index);
+        }
+
+        public int edgeStart(int index) {
+            return in.start(index);
+        }
+
+        public int edgeEnd(int index) {
+            return in.end(index);
+        }
+
+        public int edgeTarget(int edge) {
+            return in.entry(edge);
+        }
+
+        public double edgeWeight(int edge) {
+            return in.weight(edge);
+        }
+
+        public int edgeId(int edge) {
+            return -1;
+        }
+    }
+
+    /**
+     * One row of slots per node in an arena, each slot an int entry and a
+     * double weight. Row headers are start, size and capacity
+     */
+    private static final class Rows {
+        static final int REMOVED = -1;
+
+        private Region headers = new Region();
+        private Region entries = new Region();
+        private Region weights = new Region();
+        private int rows;
+        // slots handed out, and how many of them no row uses any more
+        private int top;
+        private int dead;
+
+        void addRow(int row) {
+            headers.ensure(12L * (row + 1));
+            headers.putInt(12L * row, 0);
+            headers.putInt(12L * row + 4, 0);
+            headers.putInt(12L * row + 8, 0);
+            rows = row + 1;
+        }
+
+        int start(int row) {
+            return headers.getInt(12L * row);
+        }
+
+        int size(int row) {
+            return headers.getInt(12L * row + 4);
+        }
+
+        int end(int row) {
+            return start(row) + size(row);
+        }
+
+        int entry(int slot) {
+            return entries.getInt(4L * slot);
+        }
+
+        double weight(int slot) {
+            return weights.getDouble(8L * slot);
+        }
+
+        int[] entries(int row) {
+            int[] result = new int[size(row)];
+            int start = start(row);
+            for (int k = 0; k < result.length; k++) {
+                result[k] = entry(start + k);
+            }
+            return result;
+        }
+
+        /**
+         * @return Returns the slot of the first entry in the row, -1 if none
+         */
+        int find(int row, int entry) {
+            for (int e = start(row); e < end(row); e++) {
+                if (entry(e) == entry)
+                    return e;
+            }
+            return -1;
+        }
+
+        /**
+         * @return Returns the slot of an entry with exactly this weight, or of
+         *         any entry if none has it
+         */
+        int find(int row, int entry, double weight) {
+            int any = -1;
+            for (int e = start(row); e < end(row); e++) {
+                if (entry(e) == entry) {
+                    if (Double.compare(weight(e), weight) == 0)
+                        return e;
+                    any = e;
+                }
+            }
+            return any;
+        }
+
+        /**
+         * @return Returns false if the arena has no more int positions
+         */
+        boolean append(int row, int entry, double weight) {
+            int start = start(row);
+            int size = size(row);
+            int capacity = headers.getInt(12L * row + 8);
+            if (size == capacity) {
+                int grown = Math.max(FIRST_ROW, capacity * 2);
+                if (dead >= MIN_COMPACT && dead > top / 2) {
+                    compact();
+                    start = start(row);
+                }
+                if ((long) top + grown > Integer.MAX_VALUE)
+                    return false;
+                int moved = top;
+                ensure(moved + grown);
+                for (int k = 0; k < size; k++) {
+                    entries.putInt(4L * (moved + k), entry(start + k));
+                    weights.putDouble(8L * (moved + k), weight(start + k));
+                }
+                top += grown;
+                dead += capacity;
+                start = moved;
+                headers.putInt(12L * row, start);
+                headers.putInt(12L * row + 8, grown);
+            }
+            entries.putInt(4L * (start + size), entry);
+            weights.putDouble(8L * (start + size), weight);
+            headers.putInt(12L * row + 4, size + 1);
+            return true;
+        }
+
+        /**
+         * Removes the entry at a slot by moving the row's last entry into it
+         */
+        void removeAt(int row, int slot) {
+            int last = end(row) - 1;
+            entries.putInt(4L * slot, entry(last));
+            weights.putDouble(8L * slot, weight(last));
+            headers.putInt(12L * row + 4, size(row) - 1);
+        }
+
+        /**
+         * Empties a row for good
+         */
+        void clear(int row) {
+            dead += headers.getInt(12L * row + 8);
+            headers.putInt(12L * row, REMOVED);
+            headers.putInt(12L * row + 4, 0);
+            headers.putInt(12L * row + 8, 0);
+        }
+
+        /**
+         * Copies the rows into new buffers back to back, each keeping its size
+         * as its capacity
+         */
+        void compact() {
+            Region newEntries = new Region();
+            Region newWeights = new Region();
+            int slot = 0;
+            for (int row = 0; row < rows; row++) {
+                int start = start(row);
+                if (start == REMOVED)
+                    continue;
+                int size = size(row);
+                newEntries.ensure(4L * (slot + size));
+                newWeights.ensure(8L * (slot + size));
+                for (int k = 0; k < size; k++) {
+                    newEntries.putInt(4L * (slot + k), entry(start + k));
+                    newWeights.putDouble(8L * (slot + k), weight(start + k));
+                }
+                headers.putInt(12L * row, slot);
+                headers.putInt(12L * row + 8, size);
+                slot += size;
+            }
+            entries = newEntries;
+            weights = newWeights;
+            top = slot;
+            dead = 0;
+        }
+
+        long capacity() {
+            return headers.capacity() + entries.capacity() + weights.capacity();
+        }
+
+        private void ensure(int slots) {
+            entries.ensure(4L * slots);
+            weights.ensure(8L * slots);
+        }
+    }
+
+    /**
+     * Growable direct memory addressed by long byte offsets. The first chunk
+     * doubles (copying) up to CHUNK bytes, after that whole chunks are added,
+     * so growing never copies more than one chunk. Values are only ever read
+     * at multiples of their size, so none straddles two chunks
+     */
+    private static final class Region {
+        private static final int CHUNK_BITS = 26;
+        private static final int CHUNK = 1 << CHUNK_BITS;
+        private static final int CHUNK_MASK = CHUNK - 1;
+        private static final int FIRST = 1 << 10;
+
+        private ByteBuffer[] chunks = new ByteBuffer[0];
+
+        void ensure(long bytes) {
+            if (bytes <= capacity())
+                return;
+            if (chunks.length <= 1 && bytes <= CHUNK) {
+                int size = (chunks.length == 0) ? FIRST : chunks[0].capacity();
+                while (size < bytes) {
+                    size *= 2;
+                }
+                ByteBuffer grown = allocate(size);
+                if (chunks.length == 1)
+                    grown.put(0, chunks[0], 0, chunks[0].capacity());
+                chunks = new ByteBuffer[] { grown };
+                return;
+            }
+            if (chunks.length == 1 && chunks[0].capacity() < CHUNK) {
+                ByteBuffer grown = allocate(CHUNK);
+                grown.put(0, chunks[0], 0, chunks[0].capacity());
+                chunks[0] = grown;
+            }
+            int count = (int) ((bytes + CHUNK - 1) >>> CHUNK_BITS);
+            int old = chunks.length;
+            chunks = Arrays.copyOf(chunks, count);
+            for (int c = old; c < count; c++) {
+                chunks[c] = allocate(CHUNK);
+            }
+        }
+
+        long capacity() {
+            if (chunks.length <= 1)
+                return (chunks.length == 0) ? 0 : chunks[0].capacity();
+            return (long) chunks.length << CHUNK_BITS;
+        }
+
+        int getInt(long pos) {
+            return chunks[(int) (pos >>> CHUNK_BITS)].getInt((int) (pos & CHUNK_MASK));
+        }
+
+        void putInt(long pos, int value) {
+            chunks[(int) (pos >>> CHUNK_BITS)].putInt((int) (pos & CHUNK_MASK), value);
+        }
+
+        double getDouble(long pos) {
+            return chunks[(int) (pos >>> CHUNK_BITS)].getDouble((int) (pos & CHUNK_MASK));
+        }
+
+        void putDouble(long pos, double value) {
+            chunks[(int) (pos >>> CHUNK_BITS)].putDouble((int) (pos & CHUNK_MASK), value);
+        }
+
+        private static ByteBuffer allocate(int bytes) {
+            return ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+        }
+    }
+
+}
@@ -0,0 +1,194 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Splits index ranges across a ForkJoinPool
+ *
+ * A range is halved until the pieces are small enough, then each piece runs
+ * the body directly. Ranges no bigger than minGrain never leave the calling
+ * thread, so small inputs don't pay for any task overhead
+ *
+ * Member Methods:
+ * - forRange(ForkJoinPool pool, int from, int to, int minGrain, Range body)
+ * - sum(ForkJoinPool pool, int from, int to, int minGrain, RangeSum body)
+ * - sumDouble(ForkJoinPool pool, int from, int to, int minGrain, RangeDoubleSum body)
+ *
+ * @version 1.0
+ */
+public final class Parallel {
+
+    /**
+     * Work on the indices from (inclusive) to to (exclusive)
+     */
+    @FunctionalInterface
+    public interface Range {
+        void apply(int from, int to);
+    }
+
+    /**
+     * Work on the indices from (inclusive) to to (exclusive) that adds up to a
+     * number
+     */
+    @FunctionalInterface
+    public interface RangeSum {
+        long apply(int from, int to);
+    }
+
+    /**
+     * Work on the indices from (inclusive) to to (exclusive) that adds up to a
+     * double
+     */
+    @FunctionalInterface
+    public interface RangeDoubleSum {
+        double apply(int from, int to);
+    }
+
+    // pieces per worker, a few more than one so uneven pieces balance out
+    private static final int SPLITS_PER_THREAD = 8;
+
+    private Parallel() {
+    }
+
+    /**
+     * Runs body over [from, to) split into pieces
+     *
+     * @param pool     Pool to run the pieces in
+     * @param from     First index
+     * @param to       One past the last index
+     * @param minGrain Smallest piece worth its own task
+     * @param body     Work for one piece
+     */
+    public static void forRange(ForkJoinPool pool, int from, int to, int minGrain, Range body) {
+        int grain = grain(pool, from, to, minGrain);
+        if (to - from <= grain) {
+            if (to > from)
+                body.apply(from, to);
+            return;
+        }
+        pool.invoke(new RangeAction(from, to, grain, body));
+    }
+
+    /**
+     * Runs body over [from, to) split into pieces and adds up what the pieces
+     * return
+     *
+     * @param pool     Pool to run the pieces in
+     * @param from     First index
+     * @param to       One past the last index
+     * @param minGrain Smallest piece worth its own task
+     * @param body     Work for one piece
+     * @return Returns the sum of every piece's result
+     */
+    public static long sum(ForkJoinPool pool, int from, int to, int minGrain, RangeSum body) {
+        int grain = grain(pool, from, to, minGrain);
+        if (to - from <= grain)
+            return (to > from) ? body.apply(from, to) : 0;
+        return pool.invoke(new SumTask(from, to, grain, body));
+    }
+
+    /**
+     * Runs body over [from, to) split into pieces and adds up what the pieces
+     * return. The pieces are always added in the same order, so the result
+     * doesn't depend on scheduling
+     *
+     * @param pool     Pool to run the pieces in
+     * @param from     First index
+     * @param to       One past the last index
+     * @param minGrain Smallest piece worth its own task
+     * @param body     Work for one piece
+     * @return Returns the sum of every piece's result
+     */
+    public static double sumDouble(ForkJoinPool pool, int from, int to, int minGrain, RangeDoubleSum body) {
+        int grain = grain(pool, from, to, minGrain);
+        if (to - from <= grain)
+            return (to > from) ? body.apply(from, to) : 0;
+        return pool.invoke(new DoubleSumTask(from, to, grain, body));
+    }
+
+    private static int grain(ForkJoinPool pool, int from, int to, int minGrain) {
+        long pieces = (long) pool.getParallelism() * SPLITS_PER_THREAD;
+        return (int) Math.max(Math.max(1, minGrain), ((long) to - from + pieces - 1) / pieces);
+    }
+
+    private static class RangeAction extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final int grain;
+        private final Range body;
+
+        RangeAction(int from, int to, int grain, Range body) {
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+            this.body = body;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= grain) {
+                body.apply(from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new RangeAction(from, mid, grain, body), new RangeAction(mid, to, grain, body));
+        }
+    }
+
+    private static class SumTask extends RecursiveTask<Long> {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final int grain;
+        private final RangeSum body;
+
+        SumTask(int from, int to, int grain, RangeSum body) {
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+            this.body = body;
+        }
+
+        @Override
+        protected Long compute() {
+            if (to - from <= grain)
+                return body.apply(from, to);
+            int mid = (from + to) >>> 1;
+            SumTask left = new SumTask(from, mid, grain, body);
+            left.fork();
+            long right = new SumTask(mid, to, grain, body).compute();
+            return left.join() + right;
+        }
+    }
+
+    private static class DoubleSumTask extends RecursiveTask<Double> {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final int grain;
+        private final RangeDoubleSum body;
+
+        DoubleSumTask(int from, int to, int grain, RangeDoubleSum body) {
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+            this.body = body;
+        }
+
+        @Override
+        protected Double compute() {
+            if (to - from <= grain)
+                return body.apply(from, to);
+            int mid = (from + to) >>> 1;
+            DoubleSumTask left = new DoubleSumTask(from, mid, grain, body);
+            left.fork();
+            double right = new DoubleSumTask(mid, to, grain, body).compute();
+            return left.join() + right;
+        }
+    }
+
+}
@@ -0,0 +1,197 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Strongly connected components of a CSRGraph
+ *
+ * Tarjan's algorithm without recursion: the DFS keeps its own stack of nodes
+ * and, per node, the position of the next edge to look at, so a chain of
+ * millions of nodes only costs a few int arrays instead of a
+ * StackOverflowError. Every array is sized to the snapshot once, so run() is
+ * O(n + m) and allocates nothing
+ *
+ * Components are numbered in the order Tarjan finishes them, which is a
+ * reverse topological order: every edge goes from a component to itself or
+ * to a lower numbered one. Undirected snapshots just give the connected
+ * components
+ *
+ * Member Methods:
+ * - run()
+ * - getCount()
+ * - componentOf(int index)
+ * - componentOf(Node<T> node)
+ * - getComponents()
+ * - getComponentSize(int component)
+ * - getComponent(int component)
+ * - isCyclic()
+ *
+ * @version 1.0
+ */
+public class SCC<T> {
+
+    private final CSRGraph<T> graph;
+    private final int n;
+
+    // discovery order and lowest discovery order reachable, -1 if unvisited
+    private final int[] order;
+    private final int[] low;
+    // Tarjan's stack of nodes without a component yet
+    private final int[] stack;
+    // the DFS itself: nodes and the next edge of each
+    private final int[] path;
+    private final int[] next;
+    private final int[] comp;
+    private final int[] sizes;
+    private int count;
+    private boolean cyclic;
+
+    /**
+     * Creates the algorithm for a snapshot, allocates everything it needs
+     *
+     * @param graph Snapshot to split up
+     */
+    public SCC(CSRGraph<T> graph) {
+        this.graph = graph;
+        n = graph.getSize();
+        order = new int[n];
+        low = new int[n];
+        stack = new int[n];
+        path = new int[n];
+        next = new int[n];
+        comp = new int[n];
+        sizes = new int[n];
+    }
+
+    /**
+     * Finds the components
+     *
+     * @return Returns the number of components
+     */
+    public int run() {
+        for (int v = 0; v < n; v++) {
+            order[v] = -1;
+            comp[v] = -1;
+        }
+        count = 0;
+        cyclic = false;
+        int visited = 0;
+        int top = 0;
+
+        for (int root = 0; root < n; root++) {
+            if (order[root] >= 0)
+                continue;
+            int depth = 0;
+            path[depth++] = root;
+            next[root] = graph.edgeStart(root);
+            order[root] = low[root] = visited++;
+            stack[top++] = root;
+
+            while (depth > 0) {
+                int u = path[depth - 1];
+                if (next[u] < graph.edgeEnd(u)) {
+                    int v = graph.edgeTarget(next[u]++);
+                    if (v == u) {
+                        cyclic = true;
+                    } else if (order[v] < 0) {
+                        // descend
+                        path[depth++] = v;
+                        next[v] = graph.edgeStart(v);
+                        order[v] = low[v] = visited++;
+                        stack[top++] = v;
+                    } else if (comp[v] < 0 && order[v] < low[u]) {
+                        // v is on the stack, so still in an open component
+                        low[u] = order[v];
+                    }
+                    continue;
+                }
+
+                // every edge of u is done, return to the parent
+                depth--;
+                if (depth > 0) {
+                    int parent = path[depth - 1];
+                    if (low[u] < low[parent])
+                        low[parent] = low[u];
+                }
+                if (low[u] == order[u]) {
+                    int size = 0;
+                    int v;
+                    do {
+                        v = stack[--top];
+                        comp[v] = count;
+                        size++;
+                    } while (v != u);
+                    sizes[count++] = size;
+                    if (size > 1)
+                        cyclic = true;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return Returns the number of components found by the last run()
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * @param index Dense index of the node
+     * @return Returns the number of the node's component
+     */
+    public int componentOf(int index) {
+        return comp[index];
+    }
+
+    /**
+     * @param node Node to be checked
+     * @return Returns the number of the node's component, -1 if the node isn't
+     *         in the snapshot
+     */
+    public int componentOf(Node<T> node) {
+        int index = graph.indexOf(node);
+        return (index < 0) ? -1 : comp[index];
+    }
+
+    /**
+     * The array itself, not a copy, overwritten by the next run()
+     *
+     * @return Returns the component number of every node
+     */
+    public int[] getComponents() {
+        return comp;
+    }
+
+    /**
+     * @param component Number of the component
+     * @return Returns the number of nodes in it
+     */
+    public int getComponentSize(int component) {
+        return sizes[component];
+    }
+
+    /**
+     * Gets every node of a component. Walks all nodes
+     *
+     * @param component Number of the component
+     * @return Returns the nodes of the component
+     */
+    public List<Node<T>> getComponent(int component) {
+        ArrayList<Node<T>> res = new ArrayList<>(sizes[component]);
+        for (int v = 0; v < n; v++) {
+            if (comp[v] == component)
+                res.add(graph.getNode(v));
+        }
+        return res;
+    }
+
+    /**
+     * @return Returns true if the last run() found a cycle: a component with
+     *         more than one node, or a self loop
+     */
+    public boolean isCyclic() {
+        return cyclic;
+    }
+
+}
@@ -0,0 +1,369 @@
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Predicate;
+
+/**
+ * Uniform grid over node positions
+ *
+ * Space is cut into square cells of cellSize and only occupied cells are
+ * stored (keyed by their packed cell coordinates), so nearest node lookups
+ * search outward ring by ring from the query point instead of checking every
+ * node. Nodes tell the grid when Node.setPos() moves them. Moving a node by
+ * changing the Point from getPos() directly skips that, so don't
+ *
+ * Member Methods:
+ * - add(Node<T> node)
+ * - remove(Node<T> node)
+ * - move(Node<T> node)
+ * - nearest(Point p)
+ * - nearest(Point p, int k)
+ * - inRect(Rectangle rect)
+ * - inRadius(Point p, double radius)
+ * - getSize()
+ *
+ * @version 1.0
+ */
+public class SpatialGrid<T> {
+
+    private final int cellSize;
+    private HashMap<Long, ArrayList<Node<T>>> cells;
+    private HashMap<Node<T>, Long> cellOf;
+
+    // bounds of every cell that has ever been occupied, used to stop ring
+    // searches that would otherwise walk off into empty space forever
+    private int minX = Integer.MAX_VALUE;
+    private int minY = Integer.MAX_VALUE;
+    private int maxX = Integer.MIN_VALUE;
+    private int maxY = Integer.MIN_VALUE;
+
+    /**
+     * Creates an empty grid
+     *
+     * @param cellSize Width and height of a cell, roughly the typical distance
+     *                 between nodes works best
+     */
+    public SpatialGrid(int cellSize) {
+        this.cellSize = Math.max(1, cellSize);
+        cells = new HashMap<>();
+        cellOf = new HashMap<>();
+    }
+
+    /**
+     * Adds a node at its current position
+     *
+     * @param node Node to be added
+     * @return Returns false if the node is already in the grid, true otherwise
+     */
+    public boolean add(Node<T> node) {
+        if (cellOf.containsKey(node))
+            return false;
+        insert(node);
+        node.setGrid(this);
+        return true;
+    }
+
+    /**
+     * Removes a node
+     *
+     * @param node Node to be removed
+     * @return Returns false if the node isn't in the grid, true otherwise
+     */
+    public boolean remove(Node<T> node) {
+        Long key = cellOf.remove(node);
+        if (key == null)
+            return false;
+        detach(node, key);
+        node.setGrid(null);
+        return true;
+    }
+
+    /**
+     * Moves a node to the cell of its current position, called by
+     * Node.setPos()
+     *
+     * @param node Node that moved
+     */
+    void move(Node<T> node) {
+        Long key = cellOf.get(node);
+        if (key == null)
+            return;
+        if (key == key(cell(node.getPos().x), cell(node.getPos().y)))
+            return;
+        detach(node, key);
+        insert(node);
+    }
+
+    /**
+     * @return Returns the number of nodes in the grid
+     */
+    public int getSize() {
+        return cellOf.size();
+    }
+
+    /**
+     * Gets the closest node to a given point
+     *
+     * @param p Point you want to search from
+     * @return Returns the closest node, or null if the grid is empty
+     */
+    public Node<T> nearest(Point p) {
+        if (cellOf.isEmpty())
+            return null;
+        int cx = cell(p.x);
+        int cy = cell(p.y);
+        int last = lastRing(cx, cy);
+
+        Node<T> best = null;
+        double bestDistance = Double.MAX_VALUE;
+        for (int r = 0; r <= last; r++) {
+            // once the rings cover more cells than are occupied it's cheaper to
+            // just check all of them
+            if (ringsCover(r) > cells.size()) {
+                for (ArrayList<Node<T>> list : cells.values()) {
+                    for (Node<T> node : list) {
+                        double distance = node.getPos().distanceSq(p);
+                        if (distance < bestDistance) {
+                            bestDistance = distance;
+                            best = node;
+                        }
+                    }
+                }
+                return best;
+            }
+            for (ArrayList<Node<T>> list : ring(cx, cy, r)) {
+                for (Node<T> node : list) {
+                    double distance = node.getPos().distanceSq(p);
+                    if (distance < bestDistance) {
+                        bestDistance = distance;
+                        best = node;
+                    }
+                }
+            }
+            // every cell past ring r is at least r cells away from p
+            double reach = (double) r * cellSize;
+            if (best != null && bestDistance <= reach * reach)
+                break;
+        }
+        return best;
+    }
+
+    /**
+     * Gets the k closest nodes to a given point
+     *
+     * @param p Point you want to search from
+     * @param k Number of nodes wanted
+     * @return Returns up to k nodes, closest first
+     */
+    public List<Node<T>> nearest(Point p, int k) {
+        ArrayList<Node<T>> res = new ArrayList<>();
+        if (cellOf.isEmpty() || k < 1)
+            return res;
+        // furthest of the current best k on top
+        PriorityQueue<Node<T>> heap = new PriorityQueue<>(k + 1,
+                (a, b) -> Double.compare(b.getPos().distanceSq(p), a.getPos().distanceSq(p)));
+        int cx = cell(p.x);
+        int cy = cell(p.y);
+        int last = lastRing(cx, cy);
+
+        for (int r = 0; r <= last; r++) {
+            if (ringsCover(r) > cells.size()) {
+                heap.clear();
+                for (ArrayList<Node<T>> list : cells.values()) {
+                    offer(heap, list, p, k);
+                }
+                break;
+            }
+            for (ArrayList<Node<T>> list : ring(cx, cy, r)) {
+                offer(heap, list, p, k);
+            }
+            double reach = (double) r * cellSize;
+            if (heap.size() == k && heap.peek().getPos().distanceSq(p) <= reach * reach)
+                break;
+        }
+
+        while (!heap.isEmpty())
+            res.add(heap.poll());
+        Collections.reverse(res);
+        return res;
+    }
+
+    /**
+     * Gets every node inside a rectangle
+     *
+     * @param rect Area to search
+     * @return Returns the nodes whose position is inside the rectangle
+     */
+    public List<Node<T>> inRect(Rectangle rect) {
+        if (rect.isEmpty())
+            return new ArrayList<>();
+        return inBox(rect.x, rect.y, (long) rect.x + rect.width - 1, (long) rect.y + rect.height - 1,
+                rect::contains);
+    }
+
+    /**
+     * Gets every node within a distance of a point
+     *
+     * @param p      Center of the search
+     * @param radius Maximum distance from p
+     * @return Returns the nodes at most radius away from p
+     */
+    public List<Node<T>> inRadius(Point p, double radius) {
+        if (!(radius >= 0))
+            return new ArrayList<>();
+        // past 2^33 the box covers every int coordinate anyway, capping keeps
+        // the bounds from overflowing
+        long r = (long) Math.ceil(Math.min(radius, 0x1p33));
+        double r2 = radius * radius;
+        return inBox(p.x - r, p.y - r, p.x + r, p.y + r, pos -> pos.distanceSq(p) <= r2);
+    }
+
+    /**
+     * Puts a node in the cell of its current position
+     *
+     * @param node Node to be inserted
+     */
+    private void insert(Node<T> node) {
+        int cx = cell(node.getPos().x);
+        int cy = cell(node.getPos().y);
+        long key = key(cx, cy);
+        cells.computeIfAbsent(key, K -> new ArrayList<>()).add(node);
+        cellOf.put(node, key);
+        minX = Math.min(minX, cx);
+        minY = Math.min(minY, cy);
+        maxX = Math.max(maxX, cx);
+        maxY = Math.max(maxY, cy);
+    }
+
+    /**
+     * Takes a node out of a cell, dropping the cell if it's empty after
+     *
+     * @param node Node to be taken out
+     * @param key  Key of the cell the node is in
+     */
+    private void detach(Node<T> node, long key) {
+        ArrayList<Node<T>> list = cells.get(key);
+        // order inside a cell doesn't matter, swap with the last one
+        int i = list.indexOf(node);
+        list.set(i, list.get(list.size() - 1));
+        list.remove(list.size() - 1);
+        if (list.isEmpty())
+            cells.remove(key);
+    }
+
+    /**
+     * Adds the nodes of a cell to a bounded max heap
+     */
+    private void offer(PriorityQueue<Node<T>> heap, ArrayList<Node<T>> list, Point p, int k) {
+        for (Node<T> node : list) {
+            if (heap.size() < k) {
+                heap.add(node);
+            } else if (node.getPos().distanceSq(p) < heap.peek().getPos().distanceSq(p)) {
+                heap.poll();
+                heap.add(node);
+            }
+        }
+    }
+
+    /**
+     * Gets the occupied cells exactly r cells away (Chebyshev) from a cell
+     *
+     * @return Returns the lists of the occupied cells on the ring
+     */
+    private ArrayList<ArrayList<Node<T>>> ring(int cx, int cy, int r) {
+        ArrayList<ArrayList<Node<T>>> res = new ArrayList<>();
+        if (r == 0) {
+            ArrayList<Node<T>> list = cells.get(key(cx, cy));
+            if (list != null)
+                res.add(list);
+            return res;
+        }
+        for (int x = cx - r; x <= cx + r; x++) {
+            addCell(res, x, cy - r);
+            addCell(res, x, cy + r);
+        }
+        for (int y = cy - r + 1; y <= cy + r - 1; y++) {
+            addCell(res, cx - r, y);
+            addCell(res, cx + r, y);
+        }
+        return res;
+    }
+
+    private void addCell(ArrayList<ArrayList<Node<T>>> res, int x, int y) {
+        if (x < minX || x > maxX || y < minY || y > maxY)
+            return;
+        ArrayList<Node<T>> list = cells.get(key(x, y));
+        if (list != null)
+            res.add(list);
+    }
+
+    /**
+     * @return Returns the ring past which no cell has ever been occupied
+     */
+    private int lastRing(int cx, int cy) {
+        return Math.max(Math.max(cx - minX, maxX - cx), Math.max(cy - minY, maxY - cy));
+    }
+
+    /**
+     * @return Returns the number of cells in rings 0 through r
+     */
+    private static long ringsCover(int r) {
+        return (2L * r + 1) * (2L * r + 1);
+    }
+
+    private int cell(int v) {
+        return Math.floorDiv(v, cellSize);
+    }
+
+    /**
+     * Gets the nodes in a box (bounds inclusive, long so callers can't overflow
+     * them) that pass a test, walking only the occupied cells the box covers
+     */
+    private List<Node<T>> inBox(long xLo, long yLo, long xHi, long yHi, Predicate<Point> keep) {
+        ArrayList<Node<T>> res = new ArrayList<>();
+        if (cellOf.isEmpty())
+            return res;
+        int x0 = (int) Math.max(Math.floorDiv(xLo, cellSize), minX);
+        int y0 = (int) Math.max(Math.floorDiv(yLo, cellSize), minY);
+        int x1 = (int) Math.min(Math.floorDiv(xHi, cellSize), maxX);
+        int y1 = (int) Math.min(Math.floorDiv(yHi, cellSize), maxY);
+        if (x1 < x0 || y1 < y0)
+            return res;
+
+        // a side longer than the cell count means scanning anyway, checked
+        // first so the area can't overflow
+        long width = (long) x1 - x0 + 1;
+        long height = (long) y1 - y0 + 1;
+        if (width > cells.size() || width * height > cells.size()) {
+            for (ArrayList<Node<T>> list : cells.values()) {
+                for (Node<T> node : list) {
+                    if (keep.test(node.getPos()))
+                        res.add(node);
+                }
+            }
+            return res;
+        }
+        // long so a box ending on the last int cell doesn't wrap
+        for (long x = x0; x <= x1; x++) {
+            for (long y = y0; y <= y1; y++) {
+                ArrayList<Node<T>> list = cells.get(key((int) x, (int) y));
+                if (list == null)
+                    continue;
+                for (Node<T> node : list) {
+                    if (keep.test(node.getPos()))
+                        res.add(node);
+                }
+            }
+        }
+        return res;
+    }
+
+    private static long key(int cx, int cy) {
+        return ((long) cx << 32) | (cy & 0xffffffffL);
+    }
+
+}
@@ -0,0 +1,203 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Topological order of a CSRGraph, for scheduling dependencies
+ *
+ * Kahn's algorithm: nodes with no incoming edges left go out next, and taking
+ * one out lowers the in degree of its targets. The output array doubles as
+ * the queue, so there's no recursion and nothing is allocated after
+ * construction, O(n + m) per run()
+ *
+ * Every sorted node also gets a level: 0 without dependencies, otherwise one
+ * more than the deepest node pointing at it. Nodes on the same level don't
+ * depend on each other and can run side by side
+ *
+ * If the graph has a cycle, the nodes on it and every node it leads to never
+ * get sorted. getCycle() then digs out one of those cycles
+ *
+ * Member Methods:
+ * - run()
+ * - getOrder()
+ * - getSorted()
+ * - getNodes()
+ * - position(int index)
+ * - level(int index)
+ * - getLevels()
+ * - hasCycle()
+ * - getCycle()
+ *
+ * @version 1.0
+ */
+public class TopologicalSort<T> {
+
+    private final CSRGraph<T> graph;
+    private CSRGraph<T> reverse;
+    private final int n;
+
+    private final int[] inDegree;
+    private final int[] order;
+    private final int[] position;
+    private final int[] levels;
+    private int sorted;
+
+    /**
+     * Creates the algorithm for a snapshot, allocates everything it needs
+     *
+     * @param graph Snapshot to sort, edges point from a node to the nodes that
+     *              depend on it
+     */
+    public TopologicalSort(CSRGraph<T> graph) {
+        this.graph = graph;
+        n = graph.getSize();
+        inDegree = new int[n];
+        order = new int[n];
+        position = new int[n];
+        levels = new int[n];
+    }
+
+    /**
+     * Sorts the snapshot
+     *
+     * @return Returns true if every node got sorted, false if there is a cycle
+     */
+    public boolean run() {
+        for (int v = 0; v < n; v++) {
+            inDegree[v] = 0;
+            position[v] = -1;
+            levels[v] = 0;
+        }
+        for (int e = 0; e < graph.getEdgeCount(); e++) {
+            inDegree[graph.edgeTarget(e)]++;
+        }
+        int tail = 0;
+        for (int v = 0; v < n; v++) {
+            if (inDegree[v] == 0)
+                order[tail++] = v;
+        }
+        for (int head = 0; head < tail; head++) {
+            int u = order[head];
+            position[u] = head;
+            for (int e = graph.edgeStart(u); e < graph.edgeEnd(u); e++) {
+                int v = graph.edgeTarget(e);
+                if (levels[u] + 1 > levels[v])
+                    levels[v] = levels[u] + 1;
+                if (--inDegree[v] == 0)
+                    order[tail++] = v;
+            }
+        }
+        sorted = tail;
+        return sorted == n;
+    }
+
+    /**
+     * The array itself, not a copy, overwritten by the next run(). Only the
+     * first getSorted() entries mean anything
+     *
+     * @return Returns the dense indices of the nodes in topological order
+     */
+    public int[] getOrder() {
+        return order;
+    }
+
+    /**
+     * @return Returns the number of nodes the last run() managed to sort, less
+     *         than the number of nodes if there is a cycle
+     */
+    public int getSorted() {
+        return sorted;
+    }
+
+    /**
+     * @return Returns the sorted nodes in topological order
+     */
+    public List<Node<T>> getNodes() {
+        ArrayList<Node<T>> res = new ArrayList<>(sorted);
+        for (int k = 0; k < sorted; k++) {
+            res.add(graph.getNode(order[k]));
+        }
+        return res;
+    }
+
+    /**
+     * @param index Dense index of the node
+     * @return Returns where the node is in the order, -1 if it wasn't sorted
+     */
+    public int position(int index) {
+        return position[index];
+    }
+
+    /**
+     * @param index Dense index of the node
+     * @return Returns the length of the longest chain of dependencies leading
+     *         to the node, meaningless if it wasn't sorted
+     */
+    public int level(int index) {
+        return levels[index];
+    }
+
+    /**
+     * The array itself, not a copy, overwritten by the next run()
+     *
+     * @return Returns the level of every node
+     */
+    public int[] getLevels() {
+        return levels;
+    }
+
+    /**
+     * @return Returns true if the last run() ran into a cycle
+     */
+    public boolean hasCycle() {
+        return sorted < n;
+    }
+
+    /**
+     * Finds a cycle among the nodes the last run() couldn't sort. Every one of
+     * them has an unsorted node pointing at it, so walking those backwards has
+     * to come around to a node it's already seen. Builds the transposed
+     * snapshot the first time
+     *
+     * @return Returns the dense indices of the cycle in edge order (each one has
+     *         an edge to the next, the last to the first), empty if there is no
+     *         cycle
+     */
+    public int[] getCycle() {
+        if (sorted == n)
+            return new int[0];
+        if (reverse == null)
+            reverse = graph.transpose();
+        int start = 0;
+        while (position[start] >= 0) {
+            start++;
+        }
+        // position[] is free for unsorted nodes, use it to mark the walk as
+        // -2 - step
+        int step = 0;
+        int v = start;
+        while (position[v] == -1) {
+            position[v] = -2 - step++;
+            order[n - step] = v;
+            for (int e = reverse.edgeStart(v); e < reverse.edgeEnd(v); e++) {
+                int u = reverse.edgeTarget(e);
+                if (position[u] < 0) {
+                    v = u;
+                    break;
+                }
+            }
+        }
+        // v is on the walk, the cycle is everything from it onwards, which is
+        // already in edge order going from the end of order[] back
+        int first = -2 - position[v];
+        int length = step - first;
+        int[] cycle = new int[length];
+        for (int k = 0; k < length; k++) {
+            cycle[k] = order[n - step + k];
+        }
+        for (int k = 0; k < step; k++) {
+            position[order[n - 1 - k]] = -1;
+        }
+        return cycle;
+    }
+
+}
@@ -0,0 +1,396 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Triangle counts and clustering coefficients
+ *
+ * The graph is treated as undirected and simple: edge direction, parallel
+ * edges and self loops are ignored. Every edge is pointed from the endpoint
+ * with the lower (degree, index) to the higher one, so each triangle is found
+ * exactly once, from its lowest node, and hubs only ever look at the few
+ * neighbors that outrank them. Finding the third nodes is an intersection of
+ * two outgoing neighbor sets: a merge of sorted arrays for count(CSRGraph),
+ * an AND of bitset rows for AdjMat.triangles(). Both split nodes across a
+ * ForkJoinPool
+ *
+ * Member Methods:
+ * - count(CSRGraph<T> graph)
+ * - count(CSRGraph<T> graph, ForkJoinPool pool)
+ * - getSize()
+ * - indexOf(Node<T> node)
+ * - getNode(int index)
+ * - getCounts()
+ * - getCount(int index)
+ * - getCount(Node<T> node)
+ * - getTotal()
+ * - getDegree(int index)
+ * - localClustering(int index)
+ * - localClustering(Node<T> node)
+ * - averageClustering()
+ * - globalClustering()
+ *
+ * @version 1.0
+ */
+public class Triangles<T> {
+
+    // nodes per task
+    private static final int MIN_GRAIN = 256;
+
+    private final ArrayList<Node<T>> nodes;
+    private final HashMap<Node<T>, Integer> lookIndex;
+    private final long[] counts;
+    private final int[] degrees;
+    private final long total;
+
+    /**
+     * @param nodes   Nodes in index order
+     * @param counts  Triangles through each node
+     * @param degrees Undirected simple degree of each node
+     */
+    private Triangles(List<Node<T>> nodes, long[] counts, int[] degrees) {
+        this.nodes = new ArrayList<>(nodes);
+        lookIndex = new HashMap<>(nodes.size() * 2);
+        for (int i = 0; i < nodes.size(); i++) {
+            lookIndex.put(this.nodes.get(i), i);
+        }
+        this.counts = counts;
+        this.degrees = degrees;
+        long sum = 0;
+        for (long c : counts) {
+            sum += c;
+        }
+        // every triangle has three corners
+        total = sum / 3;
+    }
+
+    /**
+     * Counts triangles in a snapshot using the common pool
+     *
+     * @param graph Snapshot to count
+     * @return Returns the counts, indexed like the snapshot
+     */
+    public static <T> Triangles<T> count(CSRGraph<T> graph) {
+        return count(graph, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Counts triangles in a snapshot by merging sorted neighbor arrays
+     *
+     * @param graph Snapshot to count
+     * @param pool  Pool to split nodes across
+     * @return Returns the counts, indexed like the snapshot
+     */
+    public static <T> Triangles<T> count(CSRGraph<T> graph, ForkJoinPool pool) {
+        int n = graph.getSize();
+        CSRGraph<T> reverse = graph.transpose();
+
+        // undirected neighbors: both rows are sorted, so merge them dropping
+        // repeats and the node itself. First pass sizes, second pass fills
+        int[] degrees = new int[n];
+        Parallel.forRange(pool, 0, n, MIN_GRAIN, (from, to) -> {
+            for (int u = from; u < to; u++) {
+                degrees[u] = mergeRows(graph, reverse, u, null, 0);
+            }
+        });
+        int[] offsets = new int[n + 1];
+        for (int u = 0; u < n; u++) {
+            offsets[u + 1] = offsets[u] + degrees[u];
+        }
+        int[] adj = new int[offsets[n]];
+        Parallel.forRange(pool, 0, n, MIN_GRAIN, (from, to) -> {
+            for (int u = from; u < to; u++) {
+                mergeRows(graph, reverse, u, adj, offsets[u]);
+            }
+        });
+
+        // keep only the neighbors that outrank u, still sorted by index
+        int[] outOffsets = new int[n + 1];
+        for (int u = 0; u < n; u++) {
+            int out = 0;
+            for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                if (outranks(adj[e], u, degrees))
+                    out++;
+            }
+            outOffsets[u + 1] = outOffsets[u] + out;
+        }
+        int[] outAdj = new int[outOffsets[n]];
+        Parallel.forRange(pool, 0, n, MIN_GRAIN, (from, to) -> {
+            for (int u = from; u < to; u++) {
+                int k = outOffsets[u];
+                for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                    if (outranks(adj[e], u, degrees))
+                        outAdj[k++] = adj[e];
+                }
+            }
+        });
+
+        AtomicLongArray found = new AtomicLongArray(n);
+        Parallel.forRange(pool, 0, n, MIN_GRAIN, (from, to) -> {
+            for (int u = from; u < to; u++) {
+                long mine = 0;
+                for (int e = outOffsets[u]; e < outOffsets[u + 1]; e++) {
+                    int v = outAdj[e];
+                    // merge out(u) and out(v)
+                    int i = outOffsets[u];
+                    int j = outOffsets[v];
+                    int iEnd = outOffsets[u + 1];
+                    int jEnd = outOffsets[v + 1];
+                    long shared = 0;
+                    while (i < iEnd && j < jEnd) {
+                        int a = outAdj[i];
+                        int b = outAdj[j];
+                        if (a < b) {
+                            i++;
+                        } else if (a > b) {
+                            j++;
+                        } else {
+                            found.incrementAndGet(a);
+                            shared++;
+                            i++;
+                            j++;
+                        }
+                    }
+                    if (shared > 0) {
+                        found.addAndGet(v, shared);
+                        mine += shared;
+                    }
+                }
+                if (mine > 0)
+                    found.addAndGet(u, mine);
+            }
+        });
+
+        return new Triangles<>(graph.getAllNodes(), toArray(found), degrees);
+    }
+
+    /**
+     * Counts triangles from symmetric bitset rows, used by AdjMat.triangles()
+     *
+     * @param nodes Nodes in row order
+     * @param rows  Row i has bit j set if i and j are adjacent, no self bits
+     * @param pool  Pool to split nodes across
+     * @return Returns the counts, indexed like the rows
+     */
+    static <T> Triangles<T> count(List<Node<T>> nodes, long[][] rows, ForkJoinPool pool) {
+        int n = nodes.size();
+        int words = (n + 63) >>> 6;
+        int[] degrees = new int[n];
+        for (int u = 0; u < n; u++) {
+            int degree = 0;
+            for (long word : rows[u]) {
+                degree += Long.bitCount(word);
+            }
+            degrees[u] = degree;
+        }
+
+        // rows of the neighbors that outrank each node
+        long[][] out = new long[n][words];
+        Parallel.forRange(pool, 0, n, MIN_GRAIN, (from, to) -> {
+            for (int u = from; u < to; u++) {
+                for (int w = 0; w < words; w++) {
+                    long bits = rows[u][w];
+                    while (bits != 0) {
+                        int v = (w << 6) + Long.numberOfTrailingZeros(bits);
+                        bits &= bits - 1;
+                        if (outranks(v, u, degrees))
+                            out[u][w] |= 1L << v;
+                    }
+                }
+            }
+        });
+
+        AtomicLongArray found = new AtomicLongArray(n);
+        Parallel.forRange(pool, 0, n, MIN_GRAIN, (from, to) -> {
+            for (int u = from; u < to; u++) {
+                long[] rowU = out[u];
+                long mine = 0;
+                for (int wv = 0; wv < words; wv++) {
+                    long vs = rowU[wv];
+                    while (vs != 0) {
+                        int v = (wv << 6) + Long.numberOfTrailingZeros(vs);
+                        vs &= vs - 1;
+                        long[] rowV = out[v];
+                        long shared = 0;
+                        for (int w = 0; w < words; w++) {
+                            long both = rowU[w] & rowV[w];
+                            shared += Long.bitCount(both);
+                            while (both != 0) {
+                                found.incrementAndGet((w << 6) + Long.numberOfTrailingZeros(both));
+                                both &= both - 1;
+                            }
+                        }
+                        if (shared > 0) {
+                            found.addAndGet(v, shared);
+                            mine += shared;
+                        }
+                    }
+                }
+                if (mine > 0)
+                    found.addAndGet(u, mine);
+            }
+        });
+
+        return new Triangles<>(nodes, toArray(found), degrees);
+    }
+
+    /**
+     * @return Returns the number of nodes
+     */
+    public int getSize() {
+        return nodes.size();
+    }
+
+    /**
+     * @param node Node to be looked up
+     * @return Returns the node's index, -1 if it isn't here
+     */
+    public int indexOf(Node<T> node) {
+        Integer index = lookIndex.get(node);
+        return (index == null) ? -1 : index;
+    }
+
+    /**
+     * @param index Index of the node
+     * @return Returns the node
+     */
+    public Node<T> getNode(int index) {
+        return nodes.get(index);
+    }
+
+    /**
+     * The array itself, not a copy
+     *
+     * @return Returns the number of triangles through each node
+     */
+    public long[] getCounts() {
+        return counts;
+    }
+
+    /**
+     * @param index Index of the node
+     * @return Returns the number of triangles through the node
+     */
+    public long getCount(int index) {
+        return counts[index];
+    }
+
+    /**
+     * @param node Node to be checked
+     * @return Returns the number of triangles through the node, -1 if it isn't
+     *         here
+     */
+    public long getCount(Node<T> node) {
+        int index = indexOf(node);
+        return (index < 0) ? -1 : counts[index];
+    }
+
+    /**
+     * @return Returns the number of triangles in the graph
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * @param index Index of the node
+     * @return Returns the number of distinct neighbors, ignoring direction
+     */
+    public int getDegree(int index) {
+        return degrees[index];
+    }
+
+    /**
+     * @param index Index of the node
+     * @return Returns the fraction of pairs of the node's neighbors that are
+     *         adjacent, 0 for nodes with fewer than two neighbors
+     */
+    public double localClustering(int index) {
+        long d = degrees[index];
+        return (d < 2) ? 0 : 2.0 * counts[index] / (d * (d - 1));
+    }
+
+    /**
+     * @param node Node to be checked
+     * @return Returns the node's local clustering coefficient, 0 if it isn't
+     *         here
+     */
+    public double localClustering(Node<T> node) {
+        int index = indexOf(node);
+        return (index < 0) ? 0 : localClustering(index);
+    }
+
+    /**
+     * @return Returns the mean local clustering coefficient over all nodes
+     */
+    public double averageClustering() {
+        if (nodes.isEmpty())
+            return 0;
+        double sum = 0;
+        for (int i = 0; i < nodes.size(); i++) {
+            sum += localClustering(i);
+        }
+        return sum / nodes.size();
+    }
+
+    /**
+     * @return Returns the transitivity: three times the triangles over the
+     *         number of connected triples
+     */
+    public double globalClustering() {
+        long triples = 0;
+        for (int d : degrees) {
+            triples += (long) d * (d - 1) / 2;
+        }
+        return (triples == 0) ? 0 : 3.0 * total / triples;
+    }
+
+    /**
+     * Merges a node's row of a snapshot and of its transpose into sorted
+     * distinct neighbors, leaving out the node itself
+     *
+     * @param out   Array to write into, null to only count
+     * @param start Position in out to start writing at
+     * @return Returns the number of neighbors
+     */
+    private static <T> int mergeRows(CSRGraph<T> graph, CSRGraph<T> reverse, int u, int[] out, int start) {
+        int i = graph.edgeStart(u);
+        int j = reverse.edgeStart(u);
+        int iEnd = graph.edgeEnd(u);
+        int jEnd = reverse.edgeEnd(u);
+        int k = 0;
+        int last = -1;
+        while (i < iEnd || j < jEnd) {
+            int v;
+            if (j >= jEnd || (i < iEnd && graph.edgeTarget(i) <= reverse.edgeTarget(j)))
+                v = graph.edgeTarget(i++);
+            else
+                v = reverse.edgeTarget(j++);
+            if (v == last || v == u)
+                continue;
+            if (out != null)
+                out[start + k] = v;
+            k++;
+            last = v;
+        }
+        return k;
+    }
+
+    /**
+     * @return Returns true if v comes after u in (degree, index) order
+     */
+    private static boolean outranks(int v, int u, int[] degrees) {
+        return degrees[v] > degrees[u] || (degrees[v] == degrees[u] && v > u);
+    }
+
+    private static long[] toArray(AtomicLongArray found) {
+        long[] res = new long[found.length()];
+        for (int i = 0; i < res.length; i++) {
+            res[i] = found.get(i);
+        }
+        return res;
+    }
+
+}
@@ -0,0 +1,156 @@
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Lock free disjoint sets over the ints 0..size-1
+ *
+ * find() and union() can be called from any number of threads at once.
+ * Parents only ever change by CAS: union() links one root under another and
+ * find() halves the path it walks. Which root goes under which is decided by
+ * a fixed hash of the two indices, which works like linking in random order
+ * (expected logarithmic depth) without having to keep ranks next to the
+ * parents
+ *
+ * Member Methods:
+ * - find(int x)
+ * - union(int a, int b)
+ * - sameSet(int a, int b)
+ * - getSets()
+ * - getSize()
+ * - grow(int size)
+ * - reset()
+ *
+ * @version 1.0
+ */
+public class UnionFind {
+
+    private AtomicIntegerArray parent;
+    private final AtomicInteger sets;
+
+    /**
+     * Creates size singleton sets
+     *
+     * @param size Number of elements
+     */
+    public UnionFind(int size) {
+        parent = new AtomicIntegerArray(size);
+        sets = new AtomicInteger();
+        reset();
+    }
+
+    /**
+     * @param x Element to be looked up
+     * @return Returns the root of the set x is in. Stable as long as nothing is
+     *         unioned
+     */
+    public int find(int x) {
+        while (true) {
+            int p = parent.get(x);
+            if (p == x)
+                return x;
+            int g = parent.get(p);
+            if (p != g)
+                parent.compareAndSet(x, p, g);
+            x = g;
+        }
+    }
+
+    /**
+     * Merges the sets of two elements
+     *
+     * @param a An element
+     * @param b Another element
+     * @return Returns true if they were in different sets
+     */
+    public boolean union(int a, int b) {
+        while (true) {
+            a = find(a);
+            b = find(b);
+            if (a == b)
+                return false;
+            if (order(a) < order(b)) {
+                int temp = a;
+                a = b;
+                b = temp;
+            }
+            // fails if someone linked a somewhere else first, then try again
+            // from the new roots
+            if (parent.compareAndSet(a, a, b)) {
+                sets.decrementAndGet();
+                return true;
+            }
+        }
+    }
+
+    /**
+     * @param a An element
+     * @param b Another element
+     * @return Returns true if both are in the same set
+     */
+    public boolean sameSet(int a, int b) {
+        while (true) {
+            a = find(a);
+            b = find(b);
+            if (a == b)
+                return true;
+            // a is still a root, so they really were apart at some point
+            if (parent.get(a) == a)
+                return false;
+        }
+    }
+
+    /**
+     * @return Returns the number of sets
+     */
+    public int getSets() {
+        return sets.get();
+    }
+
+    /**
+     * @return Returns the number of elements
+     */
+    public int getSize() {
+        return parent.length();
+    }
+
+    /**
+     * Adds singleton sets until there are size elements. Not safe to call
+     * while other threads are using the sets
+     *
+     * @param size New number of elements
+     */
+    public void grow(int size) {
+        int old = parent.length();
+        if (size <= old)
+            return;
+        AtomicIntegerArray bigger = new AtomicIntegerArray(size);
+        for (int i = 0; i < old; i++) {
+            bigger.set(i, parent.get(i));
+        }
+        for (int i = old; i < size; i++) {
+            bigger.set(i, i);
+        }
+        parent = bigger;
+        sets.addAndGet(size - old);
+    }
+
+    /**
+     * Makes every element a singleton again
+     */
+    public void reset() {
+        for (int i = 0; i < parent.length(); i++) {
+            parent.set(i, i);
+        }
+        sets.set(parent.length());
+    }
+
+    /**
+     * @return Returns where x goes in the linking order, a bijective hash so no
+     *         two elements tie
+     */
+    private static int order(int x) {
+        int h = x * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+}